@@ -58,9 +58,11 @@ public class AuthenticationService {
                 repository.save(user);
 
                 java.util.Map<String, Object> extraClaims = new java.util.HashMap<>();
-                extraClaims.put("role", user.getRole().name());
-                extraClaims.put("organizationId", organization.getId());
-                extraClaims.put("plan", organization.getPlan().name());
+                extraClaims.put(JwtService.CLAIM_USER_ID, user.getId());
+                extraClaims.put(JwtService.CLAIM_SECURITY_VERSION, user.getSecurityVersion());
+                extraClaims.put(JwtService.CLAIM_ROLE, user.getRole().name());
+                extraClaims.put(JwtService.CLAIM_ORGANIZATION_ID, organization.getId());
+                extraClaims.put(JwtService.CLAIM_PLAN, organization.getPlan().name());
 
                 var jwtToken = jwtService.generateToken(extraClaims, user);
                 return AuthenticationResponse.builder()
@@ -82,10 +84,12 @@ public class AuthenticationService {
                 var user = repository.findByEmailWithOrganization(request.getEmail())
                                 .orElseThrow();
                 java.util.Map<String, Object> extraClaims = new java.util.HashMap<>();
-                extraClaims.put("role", user.getRole().name());
+                extraClaims.put(JwtService.CLAIM_USER_ID, user.getId());
+                extraClaims.put(JwtService.CLAIM_SECURITY_VERSION, user.getSecurityVersion());
+                extraClaims.put(JwtService.CLAIM_ROLE, user.getRole().name());
                 if (user.getOrganization() != null) {
-                        extraClaims.put("organizationId", user.getOrganization().getId());
-                        extraClaims.put("plan", user.getOrganization().getPlan().name());
+                        extraClaims.put(JwtService.CLAIM_ORGANIZATION_ID, user.getOrganization().getId());
+                        extraClaims.put(JwtService.CLAIM_PLAN, user.getOrganization().getPlan().name());
                 }
                 var jwtToken = jwtService.generateToken(extraClaims, user);
                 return AuthenticationResponse.builder()
@@ -1,10 +1,18 @@
 package com.plantalinda.app.config;
 
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.PlanType;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.security.SecurityVersionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,12 +24,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityVersionService securityVersionService;
+
+    /**
+     * true: el principal se construye desde los claims verificados (sin consultar la BD).
+     * false: se carga el usuario con su organización en cada petición.
+     */
+    @Value("${jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -36,10 +53,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        // Una sola verificación por token: los claims quedan en caché hasta su 'exp'
+        final Claims claims = jwtService.resolveClaims(jwt);
+        userEmail = claims.getSubject();
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            UserDetails userDetails = resolvePrincipal(claims);
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -52,6 +71,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Obtiene el principal de la petición. Los tokens sin "uid"/"sv" (emitidos antes
+     * de existir estos claims) siguen resolviéndose contra la base de datos.
+     *
+     * @return el usuario autenticado, o null si el token fue revocado
+     */
+    private UserDetails resolvePrincipal(Claims claims) {
+        Long userId = claims.get(JwtService.CLAIM_USER_ID, Long.class);
+        Long securityVersion = claims.get(JwtService.CLAIM_SECURITY_VERSION, Long.class);
+
+        if (!statelessPrincipal || userId == null || securityVersion == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        if (!securityVersionService.isCurrent(userId, securityVersion)) {
+            log.debug("Rejected revoked token for user {}", userId);
+            return null;
+        }
+
+        return buildPrincipal(userId, securityVersion, claims);
+    }
+
+    /**
+     * Construye un User liviano (no gestionado por JPA) con los datos del token.
+     * La organización es una referencia con id y plan: suficiente para
+     * PermissionService y para asignar claves foráneas.
+     */
+    private User buildPrincipal(Long userId, Long securityVersion, Claims claims) {
+        Organization organization = null;
+        Long organizationId = claims.get(JwtService.CLAIM_ORGANIZATION_ID, Long.class);
+        if (organizationId != null) {
+            String plan = claims.get(JwtService.CLAIM_PLAN, String.class);
+            organization = Organization.builder()
+                    .id(organizationId)
+                    .plan(plan != null ? PlanType.valueOf(plan) : PlanType.FREE)
+                    .build();
+        }
+
+        return User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .role(Role.valueOf(claims.get(JwtService.CLAIM_ROLE, String.class)))
+                .organization(organization)
+                .securityVersion(securityVersion)
+                .build();
+    }
+
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -0,0 +1,142 @@
+package com.plantalinda.app.config;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Estado de los buckets de rate limiting compartido entre réplicas a través de
+ * Postgres (tabla rate_limit_bucket, ver migración V4).
+ *
+ * Cada consumo es un compare-and-swap sobre el estado serializado del bucket:
+ * se lee la fila y se actualiza solo si no cambió desde la lectura. Las
+ * sentencias corren en autocommit, fuera de cualquier transacción de negocio.
+ *
+ * El modo asíncrono de bucket4j usa las mismas sentencias: JDBC no tiene API
+ * no bloqueante, así que los futures se completan en el thread que llama.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rate-limit.distributed", name = "enabled", havingValue = "true")
+public class PostgresBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private static final String SELECT_STATE = "SELECT state FROM rate_limit_bucket WHERE bucket_key = ?";
+    private static final String INSERT_STATE = "INSERT INTO rate_limit_bucket (bucket_key, state, updated_at) "
+            + "VALUES (?, ?, now()) ON CONFLICT (bucket_key) DO NOTHING";
+    private static final String UPDATE_STATE = "UPDATE rate_limit_bucket SET state = ?, updated_at = now() "
+            + "WHERE bucket_key = ? AND state = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RateLimitProperties properties;
+
+    public PostgresBucketProxyManager(DataSource dataSource, RateLimitProperties properties) {
+        this(createJdbcTemplate(dataSource, properties), properties);
+    }
+
+    PostgresBucketProxyManager(JdbcTemplate jdbcTemplate, RateLimitProperties properties) {
+        super(ClientSideConfig.getDefault());
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    private static JdbcTemplate createJdbcTemplate(DataSource dataSource, RateLimitProperties properties) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        // Cota dura para una BD colgada; la degradación por lentitud la decide RateLimitFilter
+        template.setQueryTimeout((int) Math.max(1, properties.getDistributed().getQueryTimeout().toSeconds()));
+        return template;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                List<byte[]> rows = jdbcTemplate.query(SELECT_STATE, (rs, rowNum) -> rs.getBytes(1), key);
+                return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                if (originalData == null) {
+                    return jdbcTemplate.update(INSERT_STATE, key, newData) == 1;
+                }
+                return jdbcTemplate.update(UPDATE_STATE, newData, key, originalData) == 1;
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return completed(operation::getStateData);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                    RemoteBucketState newState) {
+                return completed(() -> operation.compareAndSwap(originalData, newData, newState));
+            }
+        };
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return completed(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key = ?", key);
+    }
+
+    // Un error de la BD llega en el future, como en un cliente asíncrono de verdad
+    private static <T> CompletableFuture<T> completed(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Borra los buckets sin actividad. Un bucket inactivo más tiempo que su
+     * período de recarga está lleno, así que recrearlo no cambia el límite.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.distributed.cleanup-interval:PT5M}")
+    public void deleteIdleBuckets() {
+        try {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM rate_limit_bucket WHERE updated_at < now() - make_interval(secs => ?)",
+                    properties.getIdleEviction().toSeconds());
+            if (deleted > 0) {
+                log.debug("Deleted {} idle rate limit buckets", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not delete idle rate limit buckets: {}", e.getMessage());
+        }
+    }
+}
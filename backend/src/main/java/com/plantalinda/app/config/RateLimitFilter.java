@@ -1,8 +1,19 @@
 package com.plantalinda.app.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.plantalinda.app.model.PlanType;
+import com.plantalinda.app.model.User;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,20 +21,80 @@ import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.core.Ordered;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Rate limiting por usuario/organización (según plan) o por IP para peticiones anónimas.
+ *
+ * Se ejecuta justo después de la cadena de Spring Security para conocer el
+ * principal autenticado. Los buckets viven en una caché acotada que desaloja
+ * las claves inactivas.
+ *
+ * Con rate-limit.distributed.enabled el estado se comparte entre réplicas vía
+ * Postgres. Cada réplica pre-consume hasta prefetch-tokens localmente antes de
+ * sincronizar, y si la BD falla o responde lento se limita solo localmente
+ * durante fallback-window.
+ */
+@Slf4j
 @Component
-@Order(Ordered.HIGHEST_PRECEDENCE)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
 public class RateLimitFilter implements Filter {
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    // Estimación del tamaño de un bucket en memoria (bucket + clave + nodo de la caché)
+    private static final long ESTIMATED_BYTES_PER_BUCKET = 400;
+
+    private static final String ANONYMOUS_TIER = "ANONYMOUS";
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Bucket> cache;
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    // Modo distribuido: proxies a Postgres en 'cache' y buckets locales de respaldo en 'fallbackCache'
+    private final PostgresBucketProxyManager proxyManager;
+    private final Cache<String, Bucket> fallbackCache;
+    private final Counter fallbackCounter;
+    private volatile long fallbackUntilNanos;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry,
+            Optional<PostgresBucketProxyManager> proxyManager) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.proxyManager = proxyManager.orElse(null);
+        this.cache = newBucketCache();
+        this.fallbackCache = newBucketCache();
+        this.fallbackUntilNanos = System.nanoTime();
+        this.fallbackCounter = Counter.builder("ratelimit.distributed.fallbacks")
+                .description("Times the distributed store was bypassed because it failed or was slow")
+                .register(meterRegistry);
+
+        Gauge.builder("ratelimit.buckets", this, f -> f.cache.estimatedSize() + f.fallbackCache.estimatedSize())
+                .description("Rate limit buckets currently held in memory")
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.memory.estimated", this,
+                f -> (f.cache.estimatedSize() + f.fallbackCache.estimatedSize()) * ESTIMATED_BYTES_PER_BUCKET)
+                .description("Estimated heap used by rate limit buckets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private Cache<String, Bucket> newBucketCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleEviction())
+                .build();
+    }
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
@@ -31,24 +102,110 @@ public class RateLimitFilter implements Filter {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
         HttpServletResponse response = (HttpServletResponse) servletResponse;
 
-        if (request.getRequestURI().startsWith("/api/")) {
-            String ip = request.getRemoteAddr();
-            Bucket bucket = cache.computeIfAbsent(ip, this::createNewBucket);
+        if (!request.getRequestURI().startsWith("/api/")) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        RateLimitKey key = resolveKey(request);
+        RateLimitProperties.Limit limit = key.plan() != null
+                ? properties.limitFor(key.plan())
+                : properties.getAnonymous();
 
-            if (bucket.tryConsume(1)) {
-                filterChain.doFilter(servletRequest, servletResponse);
-            } else {
-                response.setStatus(429);
-                response.getWriter().write("Too many requests");
-            }
-        } else {
+        ConsumptionProbe probe = proxyManager != null
+                ? consumeDistributed(key.value(), limit)
+                : consumeLocal(cache, key.value(), limit);
+        response.setHeader("X-RateLimit-Limit", String.valueOf(limit.getCapacity()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
+
+        if (probe.isConsumed()) {
             filterChain.doFilter(servletRequest, servletResponse);
+        } else {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+            rejectionCounter(key.tier()).increment();
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.getWriter().write("Too many requests");
+        }
+    }
+
+    private RateLimitKey resolveKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof User user) {
+            PlanType plan = user.getOrganization() != null && user.getOrganization().getPlan() != null
+                    ? user.getOrganization().getPlan()
+                    : PlanType.FREE;
+            // El plan forma parte de la clave: un cambio de plan crea un bucket nuevo
+            if (properties.getKeyStrategy() == RateLimitProperties.KeyStrategy.ORGANIZATION
+                    && user.getOrganization() != null) {
+                return new RateLimitKey("org:" + user.getOrganization().getId() + ":" + plan, plan, plan.name());
+            }
+            return new RateLimitKey("user:" + user.getId() + ":" + plan, plan, plan.name());
+        }
+        return new RateLimitKey("ip:" + request.getRemoteAddr(), null, ANONYMOUS_TIER);
+    }
+
+    private ConsumptionProbe consumeLocal(Cache<String, Bucket> buckets, String key, RateLimitProperties.Limit limit) {
+        Bucket bucket = buckets.get(key, k -> Bucket.builder().addLimit(bandwidthOf(limit)).build());
+        return bucket.tryConsumeAndReturnRemaining(1);
+    }
+
+    private ConsumptionProbe consumeDistributed(String key, RateLimitProperties.Limit limit) {
+        RateLimitProperties.Distributed distributed = properties.getDistributed();
+        if (System.nanoTime() - fallbackUntilNanos < 0) {
+            return consumeLocal(fallbackCache, key, limit);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Bucket bucket = cache.get(key, k -> createDistributedBucket(k, limit));
+            ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+            if (System.nanoTime() - start > distributed.getSlowCallThreshold().toNanos()) {
+                startFallback("slow call");
+            }
+            return probe;
+        } catch (RuntimeException e) {
+            // El proxy puede haber quedado con consumos sin sincronizar: se descarta
+            cache.invalidate(key);
+            startFallback(e.getMessage());
+            return consumeLocal(fallbackCache, key, limit);
         }
     }
 
-    private Bucket createNewBucket(String key) {
-        // Permitir 100 peticiones por minuto
-        Bandwidth limit = Bandwidth.classic(100, Refill.greedy(100, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    private Bucket createDistributedBucket(String key, RateLimitProperties.Limit limit) {
+        RateLimitProperties.Distributed distributed = properties.getDistributed();
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(bandwidthOf(limit))
+                .build();
+        return proxyManager.builder()
+                .withOptimization(Optimizations.delaying(
+                        new DelayParameters(distributed.getPrefetchTokens(), distributed.getSyncInterval())))
+                .build(key, configuration);
+    }
+
+    private void startFallback(String reason) {
+        long now = System.nanoTime();
+        boolean alreadyInFallback = now - fallbackUntilNanos < 0;
+        fallbackUntilNanos = now + properties.getDistributed().getFallbackWindow().toNanos();
+        if (!alreadyInFallback) {
+            fallbackCounter.increment();
+            log.warn("Distributed rate limit store unavailable ({}); limiting locally for {}",
+                    reason, properties.getDistributed().getFallbackWindow());
+        }
+    }
+
+    private Bandwidth bandwidthOf(RateLimitProperties.Limit limit) {
+        return Bandwidth.classic(limit.getCapacity(), Refill.greedy(limit.getCapacity(), limit.getPeriod()));
+    }
+
+    private Counter rejectionCounter(String tier) {
+        return rejectionCounters.computeIfAbsent(tier, t -> Counter.builder("ratelimit.rejections")
+                .description("Requests rejected with 429")
+                .tag("tier", t)
+                .register(meterRegistry));
+    }
+
+    private record RateLimitKey(String value, PlanType plan, String tier) {
     }
 }
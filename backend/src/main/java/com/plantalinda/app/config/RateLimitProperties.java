@@ -0,0 +1,120 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.model.PlanType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuración del rate limiting (prefijo "rate-limit").
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Cantidad máxima de buckets en memoria. Al superarla se desalojan los menos usados.
+     */
+    private long maxBuckets = 100_000;
+
+    /**
+     * Tiempo sin actividad tras el cual se descarta el bucket de una clave.
+     */
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    /**
+     * Clave para peticiones autenticadas: por usuario o por organización.
+     * Las peticiones anónimas siempre se limitan por IP.
+     */
+    private KeyStrategy keyStrategy = KeyStrategy.USER;
+
+    /**
+     * Límite para peticiones anónimas (por IP).
+     */
+    private Limit anonymous = new Limit(100, Duration.ofMinutes(1));
+
+    /**
+     * Límite por plan de la organización.
+     */
+    private Map<PlanType, Limit> plans = defaultPlans();
+
+    /**
+     * Buckets compartidos entre réplicas (Postgres).
+     */
+    private Distributed distributed = new Distributed();
+
+    public Limit limitFor(PlanType plan) {
+        if (plan == null) {
+            return anonymous;
+        }
+        return plans.getOrDefault(plan, anonymous);
+    }
+
+    private static Map<PlanType, Limit> defaultPlans() {
+        Map<PlanType, Limit> plans = new EnumMap<>(PlanType.class);
+        plans.put(PlanType.FREE, new Limit(100, Duration.ofMinutes(1)));
+        plans.put(PlanType.PRO, new Limit(300, Duration.ofMinutes(1)));
+        plans.put(PlanType.ENTERPRISE, new Limit(1000, Duration.ofMinutes(1)));
+        return plans;
+    }
+
+    public enum KeyStrategy {
+        USER,
+        ORGANIZATION
+    }
+
+    @Data
+    public static class Distributed {
+
+        /**
+         * false: cada réplica limita por su cuenta (el límite efectivo se multiplica por la cantidad de réplicas).
+         */
+        private boolean enabled = false;
+
+        /**
+         * Tokens que cada réplica puede consumir localmente antes de sincronizar con la BD.
+         * El límite global puede excederse como mucho en este valor por réplica.
+         */
+        private long prefetchTokens = 10;
+
+        /**
+         * Tiempo máximo que una réplica acumula consumos locales sin sincronizar.
+         */
+        private Duration syncInterval = Duration.ofSeconds(1);
+
+        /**
+         * Una llamada a la BD más lenta que esto activa el modo local.
+         */
+        private Duration slowCallThreshold = Duration.ofMillis(200);
+
+        /**
+         * Tiempo durante el cual se limita solo localmente tras un error o una llamada lenta.
+         */
+        private Duration fallbackWindow = Duration.ofSeconds(30);
+
+        /**
+         * Timeout de las consultas al almacén de buckets (resolución de segundos).
+         */
+        private Duration queryTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Cada cuánto se borran de la BD los buckets inactivos (más de idle-eviction).
+         */
+        private Duration cleanupInterval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private long capacity;
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
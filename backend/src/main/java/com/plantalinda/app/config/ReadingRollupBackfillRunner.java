@@ -0,0 +1,46 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.service.BatchReadingRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recalcula al arrancar los rollups de lecturas de todos los lotes a partir de
+ * batch_log. Pensado para poblar batch_reading_rollup una vez tras la
+ * migración V8 (o repararlo): es idempotente y cada lote va en su propia
+ * transacción, así que puede correr con la aplicación recibiendo lecturas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rollups.backfill-on-startup", havingValue = "true")
+public class ReadingRollupBackfillRunner implements ApplicationRunner {
+
+    private final BatchReadingRollupService rollupService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> batchIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT batch_id FROM batch_log ORDER BY batch_id", Long.class);
+        log.info("Rebuilding reading rollups for {} batches", batchIds.size());
+
+        int failed = 0;
+        for (Long batchId : batchIds) {
+            try {
+                rollupService.rebuild(batchId);
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Could not rebuild reading rollups for batch {}: {}", batchId, e.getMessage());
+            }
+        }
+        log.info("Reading rollup backfill finished ({} batches, {} failed)", batchIds.size(), failed);
+    }
+}
@@ -1,5 +1,6 @@
 package com.plantalinda.app.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,6 +34,9 @@ public class SecurityConfiguration {
                                 .csrf(AbstractHttpConfigurer::disable)
                                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Fin de respuestas async (exportaciones en streaming): la petición
+                                                // original ya fue autorizada y el JWT no se vuelve a procesar
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                                 .requestMatchers("/api/v1/auth/**").permitAll()
                                                 .requestMatchers("/uploads/**").permitAll()
                                                 .requestMatchers("/actuator/health").permitAll()
@@ -53,6 +57,8 @@ public class SecurityConfiguration {
                 configuration.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:3001"));
                 configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                 configuration.setAllowedHeaders(List.of("*"));
+                configuration.setExposedHeaders(List.of(
+                                "X-RateLimit-Limit", "X-RateLimit-Remaining", "Retry-After", "X-Next-Cursor"));
                 configuration.setAllowCredentials(true);
 
                 UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,51 @@
+package com.plantalinda.app.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Modo row-level security de Postgres (app.tenant.rls.enabled=true).
+ *
+ * Requiere V6__row_level_security.sql y V16__rls_fail_closed.sql. Envuelve el
+ * pool principal en TenantRlsDataSource, así JPA, JdbcTemplate y las lecturas
+ * fuera de transacción fijan el tenant al tomar la conexión. Las tareas de
+ * fondo usan un segundo pool, más chico, con las credenciales de
+ * app.tenant.rls.background (rol con BYPASSRLS).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.tenant.rls", name = "enabled", havingValue = "true")
+public class TenantRlsConfig {
+
+    @Bean
+    public static BeanPostProcessor tenantRlsDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+            Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof HikariDataSource pool) {
+                    return new TenantRlsDataSource(pool, backgroundPool(pool, environment), meterRegistry::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static HikariDataSource backgroundPool(HikariDataSource pool, Environment environment) {
+        HikariConfig config = new HikariConfig();
+        pool.copyStateTo(config);
+        config.setPoolName("tenant-rls-background");
+        config.setUsername(environment.getRequiredProperty("app.tenant.rls.background.username"));
+        config.setPassword(environment.getProperty("app.tenant.rls.background.password"));
+        config.setMaximumPoolSize(environment.getProperty("app.tenant.rls.background.pool-size", Integer.class, 4));
+        config.setMinimumIdle(0);
+        return new HikariDataSource(config);
+    }
+}
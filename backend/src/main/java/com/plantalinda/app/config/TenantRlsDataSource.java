@@ -0,0 +1,91 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.security.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * DataSource del modo row-level security (app.tenant.rls.enabled=true).
+ *
+ * Cada conexión que se toma del pool sale con app.tenant_id del tenant de
+ * TenantContext, o vacío sin tenant (las políticas de V16 no devuelven filas).
+ * Así aplica a todo lo que toma una conexión durante la petición: transacciones
+ * JPA, lecturas en autocommit bajo OSIV y JdbcTemplate. Se fija a nivel de
+ * sesión con un único set_config por préstamo; el siguiente préstamo siempre
+ * lo pisa, así que el valor no pasa de una petición a otra.
+ *
+ * Las tareas de fondo (TenantContext.runCrossTenant) toman sus conexiones del
+ * pool background, conectado con un rol con BYPASSRLS.
+ */
+public class TenantRlsDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    static final String SET_TENANT = "SELECT set_config('app.tenant_id', ?, false)";
+
+    private final DataSource background;
+    private final Supplier<MeterRegistry> meterRegistry;
+    private volatile Timer setTenantTimer;
+
+    public TenantRlsDataSource(DataSource tenant, DataSource background, Supplier<MeterRegistry> meterRegistry) {
+        super(tenant);
+        this.background = background;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TenantContext.hasTenant() && TenantContext.isCrossTenant()) {
+            return background.getConnection();
+        }
+        return withTenant(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!TenantContext.hasTenant() && TenantContext.isCrossTenant()) {
+            return background.getConnection(username, password);
+        }
+        return withTenant(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection withTenant(Connection connection) throws SQLException {
+        String tenantId = TenantContext.hasTenant() ? TenantContext.getTenantId().toString() : "";
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(SET_TENANT)) {
+            statement.setString(1, tenantId);
+            statement.execute();
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return connection;
+    }
+
+    private Timer timer() {
+        Timer timer = setTenantTimer;
+        if (timer == null) {
+            timer = Timer.builder("tenant.rls.set_config")
+                    .description("Time spent setting app.tenant_id on each borrowed connection")
+                    .register(meterRegistry.get());
+            setTenantTimer = timer;
+        }
+        return timer;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : new DataSource[] { background, getTargetDataSource() }) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
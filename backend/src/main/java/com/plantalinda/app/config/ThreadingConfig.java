@@ -0,0 +1,25 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.security.TenantTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Configuración de ejecución de tareas.
+ *
+ * El modo virtual threads se activa con spring.threads.virtual.enabled=true sobre
+ * un JDK 21+ (perfil Maven jdk21): Tomcat atiende cada petición en un virtual
+ * thread y el executor de @Async también los usa.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    /**
+     * Spring Boot aplica este decorator a los executors que autoconfigura.
+     */
+    @Bean
+    public TaskDecorator tenantTaskDecorator() {
+        return new TenantTaskDecorator();
+    }
+}
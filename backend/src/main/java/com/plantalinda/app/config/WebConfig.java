@@ -1,12 +1,19 @@
 package com.plantalinda.app.config;
 
+import com.plantalinda.app.security.TenantFilterInterceptor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final TenantFilterInterceptor tenantFilterInterceptor;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Servir archivos de la carpeta uploads como recursos estáticos
@@ -14,4 +21,12 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:uploads/");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Después del interceptor de open-in-view, que abre la sesión de la petición
+        registry.addInterceptor(tenantFilterInterceptor)
+                .addPathPatterns("/api/**")
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
 }
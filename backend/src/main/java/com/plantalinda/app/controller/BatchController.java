@@ -1,17 +1,24 @@
 package com.plantalinda.app.controller;
 
 import com.plantalinda.app.dto.*;
+import com.plantalinda.app.dto.BulkBatchLogDtos.BulkIngestRequest;
+import com.plantalinda.app.dto.BulkBatchLogDtos.BulkIngestResponse;
+import com.plantalinda.app.dto.ReadingSeriesDtos.Series;
 import com.plantalinda.app.model.BatchStage;
 import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
+import com.plantalinda.app.service.BatchLogIngestionService;
 import com.plantalinda.app.service.BatchService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,7 +26,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BatchController {
 
+    private static final int MAX_READING_POINTS = 2000;
+
     private final BatchService batchService;
+    private final BatchLogIngestionService batchLogIngestionService;
     private final com.plantalinda.app.service.PermissionService permissionService;
 
     @PostMapping
@@ -44,11 +54,21 @@ public class BatchController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Paginado por defecto (cursor/limit, ver X-Next-Cursor). unpaged=true
+     * devuelve el listado completo como antes.
+     */
     @GetMapping
-    public ResponseEntity<List<BatchResponse>> getUserBatches(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<BatchResponse>> getUserBatches(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
+            @AuthenticationPrincipal User user) {
         permissionService.requirePermission(user, "view batches");
-        List<BatchResponse> batches = batchService.getUserBatches(user);
-        return ResponseEntity.ok(batches);
+        if (unpaged) {
+            return ResponseEntity.ok(batchService.getUserBatches(user));
+        }
+        return CursorResponses.ok(batchService.getUserBatches(user, KeysetPageRequest.of(cursor, limit)));
     }
 
     @GetMapping("/{batchId}")
@@ -75,9 +95,11 @@ public class BatchController {
         return ResponseEntity.ok(response);
     }
 
+    // 204 si se borró en el momento, 202 si quedó en purga asíncrona (lotes grandes o async=true)
     @DeleteMapping("/{batchId}")
     public ResponseEntity<Void> deleteBatch(
             @PathVariable Long batchId,
+            @RequestParam(required = false) Boolean async,
             @AuthenticationPrincipal User user) {
 
         permissionService.requirePermission(user, "delete batch");
@@ -85,7 +107,9 @@ public class BatchController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        batchService.deleteBatch(batchId, user);
+        if (!batchService.deleteBatch(batchId, user, async)) {
+            return ResponseEntity.accepted().build();
+        }
         return ResponseEntity.noContent().build();
     }
 
@@ -103,13 +127,64 @@ public class BatchController {
         return ResponseEntity.ok(response);
     }
 
+    // Ingesta masiva para gateways de sensores: resultado aceptado/rechazado por lectura
+    @PostMapping("/logs/bulk")
+    public ResponseEntity<BulkIngestResponse> createLogsBulk(
+            @RequestBody BulkIngestRequest request,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "create log");
+        if (!permissionService.canCreateBatchLogs(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(batchLogIngestionService.ingest(request.getReadings(), user));
+    }
+
     @GetMapping("/{batchId}/logs")
     public ResponseEntity<List<BatchLogResponse>> getBatchLogs(
             @PathVariable Long batchId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
             @AuthenticationPrincipal User user) {
 
         permissionService.requirePermission(user, "view logs");
-        List<BatchLogResponse> logs = batchService.getBatchLogs(batchId, user);
-        return ResponseEntity.ok(logs);
+        if (unpaged) {
+            return ResponseEntity.ok(batchService.getBatchLogs(batchId, user));
+        }
+        return CursorResponses.ok(batchService.getBatchLogs(batchId, user, KeysetPageRequest.of(cursor, limit)));
+    }
+
+    // Serie agregada por hora o día según el rango (por defecto, últimos 30 días)
+    @GetMapping("/{batchId}/readings")
+    public ResponseEntity<Series> getReadings(
+            @PathVariable Long batchId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "500") int maxPoints,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view logs");
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        int points = Math.max(1, Math.min(maxPoints, MAX_READING_POINTS));
+        return ResponseEntity.ok(batchService.getReadings(batchId, user, start, end, points));
+    }
+
+    // Exportación completa en streaming (CSV o NDJSON, opcionalmente gzip)
+    @GetMapping("/{batchId}/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportBatchLogs(
+            @PathVariable Long batchId,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view logs");
+        // Valida la propiedad antes de empezar a escribir la respuesta
+        batchService.requireBatchAccess(batchId, user);
+
+        return ExportResponses.stream("batch-" + batchId + "-logs", format, gzip,
+                out -> batchService.exportLogs(batchId, format, gzip, out));
     }
 }
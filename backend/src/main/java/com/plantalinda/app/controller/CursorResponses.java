@@ -0,0 +1,27 @@
+package com.plantalinda.app.controller;
+
+import com.plantalinda.app.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Respuestas de listados paginados con keyset. El cuerpo sigue siendo el array
+ * de elementos; el cursor de la página siguiente viaja en X-Next-Cursor
+ * (ausente en la última página).
+ */
+final class CursorResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
@@ -2,6 +2,7 @@ package com.plantalinda.app.controller;
 
 import com.plantalinda.app.dto.DiagnosisResponse;
 import com.plantalinda.app.dto.EnhancedDiagnosisRequest;
+import com.plantalinda.app.dto.KeysetPageRequest;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.service.DiagnosisService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,7 +42,13 @@ public class DiagnosisController {
 
     @GetMapping("/history")
     public ResponseEntity<List<DiagnosisResponse>> getHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
             @AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(service.getUserHistory(user));
+        if (unpaged) {
+            return ResponseEntity.ok(service.getUserHistory(user));
+        }
+        return CursorResponses.ok(service.getUserHistory(user, KeysetPageRequest.of(cursor, limit)));
     }
 }
@@ -0,0 +1,51 @@
+package com.plantalinda.app.controller;
+
+import com.plantalinda.app.dto.ExportFormat;
+import com.plantalinda.app.security.TenantContext;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Respuestas de exportación en streaming. El cuerpo se escribe en un hilo del
+ * executor async de MVC, así que el tenant de la petición se propaga
+ * explícitamente. Con gzip se descarga un archivo .gz.
+ */
+final class ExportResponses {
+
+    private ExportResponses() {
+    }
+
+    @FunctionalInterface
+    interface Exporter {
+        void export(OutputStream out) throws IOException;
+    }
+
+    static ResponseEntity<StreamingResponseBody> stream(String filename, ExportFormat format, boolean gzip,
+            Exporter exporter) {
+        Long tenantId = TenantContext.getTenantId();
+        StreamingResponseBody body = out -> {
+            try {
+                TenantContext.callWithTenant(tenantId, () -> {
+                    exporter.export(out);
+                    return null;
+                });
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        String name = filename + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name).build().toString())
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : format.getMediaType())
+                .body(body);
+    }
+}
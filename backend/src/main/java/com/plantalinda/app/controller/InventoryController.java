@@ -1,17 +1,28 @@
 package com.plantalinda.app.controller;
 
 import com.plantalinda.app.dto.*;
+import com.plantalinda.app.dto.StockBalanceDtos.Balance;
+import com.plantalinda.app.dto.StockBalanceDtos.StockAt;
+import com.plantalinda.app.dto.ValuationDtos.BatchCost;
+import com.plantalinda.app.dto.ValuationDtos.Summary;
 import com.plantalinda.app.model.InventoryItemType;
+import com.plantalinda.app.model.MovementType;
 import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
+import com.plantalinda.app.service.InventoryBulkMovementService;
 import com.plantalinda.app.service.InventoryService;
+import com.plantalinda.app.service.InventorySnapshotService;
+import com.plantalinda.app.service.InventoryValuationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,6 +31,9 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryBulkMovementService inventoryBulkMovementService;
+    private final InventorySnapshotService inventorySnapshotService;
+    private final InventoryValuationService inventoryValuationService;
     private final com.plantalinda.app.service.PermissionService permissionService;
 
     @PostMapping("/items")
@@ -43,6 +57,9 @@ public class InventoryController {
 
     @GetMapping("/items")
     public ResponseEntity<List<InventoryItemResponse>> getUserInventory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
             @AuthenticationPrincipal User user) {
 
         permissionService.requirePermission(user, "view inventory");
@@ -51,8 +68,10 @@ public class InventoryController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<InventoryItemResponse> items = inventoryService.getUserInventory(user);
-        return ResponseEntity.ok(items);
+        if (unpaged) {
+            return ResponseEntity.ok(inventoryService.getUserInventory(user));
+        }
+        return CursorResponses.ok(inventoryService.getUserInventory(user, KeysetPageRequest.of(cursor, limit)));
     }
 
     @GetMapping("/items/type/{type}")
@@ -96,6 +115,68 @@ public class InventoryController {
         return ResponseEntity.ok(item);
     }
 
+    // Stock de un item a una fecha, desde el snapshot diario más cercano
+    @GetMapping("/items/{itemId}/stock")
+    public ResponseEntity<StockAt> getStockAt(
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view inventory");
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(inventorySnapshotService.getStockAt(itemId, user, at));
+    }
+
+    // Saldos de apertura y cierre por item para los reportes de un período
+    @GetMapping("/stock/balances")
+    public ResponseEntity<List<Balance>> getStockBalances(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view inventory");
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(inventorySnapshotService.getBalances(user, from, to));
+    }
+
+    // Valor del stock a costo promedio ponderado (solo roles con acceso a reportes financieros)
+    @GetMapping("/valuation")
+    public ResponseEntity<Summary> getValuation(@AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view inventory valuation");
+        if (!permissionService.canViewFinancialReports(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(inventoryValuationService.getSummary(user));
+    }
+
+    // Costo de los insumos consumidos por un lote
+    @GetMapping("/valuation/batches/{batchId}")
+    public ResponseEntity<BatchCost> getBatchCost(
+            @PathVariable Long batchId,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view inventory valuation");
+        if (!permissionService.canViewFinancialReports(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(inventoryValuationService.getBatchCost(batchId, user));
+    }
+
     @DeleteMapping("/items/{itemId}")
     public ResponseEntity<Void> deleteItem(
             @PathVariable Long itemId,
@@ -130,6 +211,23 @@ public class InventoryController {
         return ResponseEntity.ok(response);
     }
 
+    // Varias líneas (p. ej. los insumos de un riego) en una sola transacción: se registran todas o ninguna
+    @PostMapping("/movements/bulk")
+    public ResponseEntity<List<InventoryMovementResponse>> recordMovements(
+            @RequestBody BulkInventoryMovementRequest request,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "record movement");
+        if (!permissionService.canManageInventory(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(inventoryBulkMovementService.record(request.getMovements(), user));
+    }
+
     @GetMapping("/items/{itemId}/movements")
     public ResponseEntity<List<InventoryMovementResponse>> getItemMovements(
             @PathVariable Long itemId,
@@ -156,4 +254,45 @@ public class InventoryController {
         List<InventoryMovementResponse> movements = inventoryService.getAllMovements(user);
         return ResponseEntity.ok(movements);
     }
+
+    // Feed de movimientos de toda la organización para auditoría, filtrado y paginado con keyset
+    @GetMapping("/movements/feed")
+    public ResponseEntity<List<InventoryMovementResponse>> getMovementFeed(
+            @RequestParam(required = false) MovementType type,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(required = false) Long batchId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view movements");
+        if (!permissionService.canViewReports(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        MovementFeedFilter filter = new MovementFeedFilter(type, itemId, batchId, userId, from, to);
+        return CursorResponses.ok(inventoryService.getMovementFeed(user, filter, KeysetPageRequest.of(cursor, limit)));
+    }
+
+    // Exportación completa en streaming (CSV o NDJSON, opcionalmente gzip)
+    @GetMapping("/movements/export")
+    public ResponseEntity<StreamingResponseBody> exportMovements(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User user) {
+
+        permissionService.requirePermission(user, "view movements");
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ExportResponses.stream("inventory-movements", format, gzip,
+                out -> inventoryService.exportMovements(user, format, gzip, out));
+    }
 }
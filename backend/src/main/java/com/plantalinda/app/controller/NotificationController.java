@@ -1,5 +1,6 @@
 package com.plantalinda.app.controller;
 
+import com.plantalinda.app.dto.KeysetPageRequest;
 import com.plantalinda.app.dto.NotificationResponse;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.service.NotificationService;
@@ -20,8 +21,14 @@ public class NotificationController {
 
     @GetMapping
     public ResponseEntity<List<NotificationResponse>> getAllNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
             @AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(notificationService.getUserNotifications(user));
+        if (unpaged) {
+            return ResponseEntity.ok(notificationService.getUserNotifications(user));
+        }
+        return CursorResponses.ok(notificationService.getUserNotifications(user, KeysetPageRequest.of(cursor, limit)));
     }
 
     @GetMapping("/unread")
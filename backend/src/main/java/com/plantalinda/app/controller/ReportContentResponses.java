@@ -0,0 +1,151 @@
+package com.plantalinda.app.controller;
+
+import com.plantalinda.app.model.Report;
+import com.plantalinda.app.service.ReportContentStore;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Descarga del cuerpo de un reporte. Si el cliente acepta gzip se envían los
+ * bytes guardados tal cual (Content-Encoding: gzip), con ETag y un único rango
+ * por petición; si no, se descomprimen al vuelo, sin rangos. Los reportes
+ * anteriores a V14 se sirven desde reports.content.
+ */
+final class ReportContentResponses {
+
+    private ReportContentResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> download(Report report, HttpHeaders request,
+            ReportContentStore store) {
+        String filename = "reporte-" + report.getType().name().toLowerCase() + "-" + report.getId() + ".json";
+        String disposition = ContentDisposition.attachment().filename(filename).build().toString();
+
+        if (report.getCompressedSize() == null) {
+            byte[] legacy = report.getContent() == null ? new byte[0]
+                    : report.getContent().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(legacy.length)
+                    .body(out -> out.write(legacy));
+        }
+
+        Long reportId = report.getId();
+        long length = report.getCompressedSize();
+        boolean gzip = acceptsGzip(request);
+        // Cada representación (gzip o JSON plano) tiene su propio ETag
+        String etag = "\"" + report.getContentEtag() + (gzip ? "" : "-identity") + "\"";
+
+        if (matches(request.getIfNoneMatch(), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        if (!gzip) {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.ACCEPT_RANGES, "none")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(report.getContentSize())
+                    .body(out -> {
+                        try (InputStream in = new GZIPInputStream(store.open(reportId, 0, length), 8192)) {
+                            in.transferTo(out);
+                        }
+                    });
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        long start = 0;
+        long count = length;
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            count = range.getRangeEnd(length) - start + 1;
+            // HttpRange no valida contra el largo: un inicio desde el final (o "-0") queda vacío
+            if (start >= length || count <= 0) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+            response = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .header(HttpHeaders.CONTENT_RANGE,
+                            "bytes " + start + "-" + (start + count - 1) + "/" + length);
+        }
+
+        long offset = start;
+        long size = count;
+        return response
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(size)
+                .body(out -> {
+                    try (InputStream in = store.open(reportId, offset, size)) {
+                        in.transferTo(out);
+                    }
+                });
+    }
+
+    static boolean acceptsGzip(HttpHeaders request) {
+        for (String value : request.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                    continue;
+                }
+                boolean refused = parts.length > 1 && parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * El rango pedido, o null para enviar el cuerpo completo: sin Range, con
+     * varios rangos (multipart no se soporta) o con un If-Range que ya no
+     * coincide.
+     */
+    private static HttpRange singleRange(HttpHeaders request, String etag) {
+        List<HttpRange> ranges;
+        try {
+            ranges = request.getRange();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+        return ranges.get(0);
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        String weak = "W/" + etag;
+        return ifNoneMatch.stream().map(String::trim)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals(weak));
+    }
+}
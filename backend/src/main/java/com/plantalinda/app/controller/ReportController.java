@@ -1,14 +1,20 @@
 package com.plantalinda.app.controller;
 
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.ReportSummaryResponse;
 import com.plantalinda.app.model.Report;
 import com.plantalinda.app.model.ReportType;
 import com.plantalinda.app.model.User;
+import com.plantalinda.app.service.ReportContentStore;
 import com.plantalinda.app.service.ReportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -20,6 +26,7 @@ import java.util.Map;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportContentStore reportContentStore;
     private final com.plantalinda.app.service.PermissionService permissionService;
 
     @PostMapping("/generate")
@@ -40,12 +47,19 @@ public class ReportController {
         LocalDateTime startDate = ZonedDateTime.parse(request.get("startDate")).toLocalDateTime();
         LocalDateTime endDate = ZonedDateTime.parse(request.get("endDate")).toLocalDateTime();
 
+        // Se genera en segundo plano: el cliente consulta GET /{id} hasta COMPLETED o FAILED
         Report report = reportService.generateReport(user, type, startDate, endDate);
-        return ResponseEntity.ok(report);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/reports/" + report.getId()))
+                .body(report);
     }
 
     @GetMapping
-    public ResponseEntity<List<Report>> getUserReports(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<ReportSummaryResponse>> getUserReports(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
+            @AuthenticationPrincipal User user) {
         permissionService.requirePermission(user, "view reports");
         if (!permissionService.canViewReports(user)) {
             return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
@@ -54,11 +68,14 @@ public class ReportController {
             return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.ok(reportService.getUserReports(user));
+        if (unpaged) {
+            return ResponseEntity.ok(reportService.getUserReports(user));
+        }
+        return CursorResponses.ok(reportService.getUserReports(user, KeysetPageRequest.of(cursor, limit)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Report> getReport(
+    public ResponseEntity<ReportSummaryResponse> getReport(
             @AuthenticationPrincipal User user,
             @PathVariable Long id) {
 
@@ -70,11 +87,28 @@ public class ReportController {
             return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
         }
 
-        Report report = reportService.getUserReports(user).stream()
-                .filter(r -> r.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Reporte no encontrado"));
+        return ResponseEntity.ok(reportService.getUserReportSummary(id, user));
+    }
+
+    @GetMapping("/{id}/content")
+    public ResponseEntity<StreamingResponseBody> downloadReport(
+            @AuthenticationPrincipal User user,
+            @PathVariable Long id,
+            @RequestHeader HttpHeaders headers) {
+
+        permissionService.requirePermission(user, "download report");
+        if (!permissionService.canViewReports(user)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
+        }
+        if (!permissionService.canAccessProFeatures(user)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
+        }
 
-        return ResponseEntity.ok(report);
+        Report report = reportService.getUserReport(id, user);
+        if (!Report.STATUS_COMPLETED.equals(report.getStatus())) {
+            // Todavía en cola o fallido: el estado y el error están en GET /{id}
+            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT).build();
+        }
+        return ReportContentResponses.download(report, headers, reportContentStore);
     }
 }
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
+// El orden de los campos es el del constructor que usan las proyecciones de BatchLogRepository
 @Data
 @Builder
 @NoArgsConstructor
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Data
 @Builder
@@ -25,4 +26,11 @@ public class BatchResponse {
     private LocalDateTime createdAt;
     private Integer daysInCurrentStage;
     private Integer totalDays;
+
+    // Proyección JPQL (BatchRepository.RESPONSE): los días se calculan al construir
+    public BatchResponse(Long id, String name, String strain, Integer plantCount, BatchStage currentStage,
+            LocalDate germinationDate, LocalDate harvestDate, String notes, LocalDateTime createdAt) {
+        this(id, name, strain, plantCount, currentStage, germinationDate, harvestDate, notes, createdAt, null,
+                (int) ChronoUnit.DAYS.between(germinationDate, LocalDate.now()));
+    }
 }
@@ -0,0 +1,57 @@
+package com.plantalinda.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTOs para la ingesta masiva de lecturas de bitácora (gateways de sensores)
+ */
+public class BulkBatchLogDtos {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reading {
+        private Long batchId;
+        private LocalDateTime timestamp; // Hora de la lectura en el sensor; si falta se usa la de recepción
+        private Double ph;
+        private Double ec;
+        private Double temperature;
+        private Double humidity;
+        private String notes;
+        private String type;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkIngestRequest {
+        private List<Reading> readings;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private int index; // Posición de la lectura en la petición
+        private boolean accepted;
+        private String error;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkIngestResponse {
+        private int accepted;
+        private int rejected;
+        private List<RowResult> results;
+    }
+}
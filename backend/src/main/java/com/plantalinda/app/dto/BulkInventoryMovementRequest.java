@@ -0,0 +1,18 @@
+package com.plantalinda.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Varias líneas de movimiento registradas en una sola transacción
+ * (por ejemplo, todos los insumos de una sesión de riego)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInventoryMovementRequest {
+    private List<CreateInventoryMovementRequest> movements;
+}
@@ -0,0 +1,31 @@
+package com.plantalinda.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado keyset. El cursor de la página siguiente es null en la última.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * @param rows   resultado de la consulta con request.probe() (hasta limit + 1 filas)
+     * @param key    posición (timestamp, id) de una fila
+     * @param mapper conversión de la fila a DTO
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, KeysetPageRequest request,
+            Function<E, KeysetCursor> key, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > request.limit();
+        List<E> page = hasNext ? rows.subList(0, request.limit()) : rows;
+        String nextCursor = hasNext ? key.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -33,4 +33,14 @@ public class InventoryItemResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Boolean isLowStock;
+
+    // Proyección JPQL (InventoryItemRepository.RESPONSE): isLowStock se calcula al construir
+    public InventoryItemResponse(Long id, String name, InventoryItemType type, String description,
+            Double currentQuantity, Double minimumQuantity, UnitOfMeasure unit, String strain, String brand,
+            String supplier, LocalDate expirationDate, Long batchId, String batchName, Double unitCost,
+            String location, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, type, description, currentQuantity, minimumQuantity, unit, strain, brand, supplier,
+                expirationDate, batchId, batchName, unitCost, location, createdAt, updatedAt,
+                minimumQuantity != null && currentQuantity < minimumQuantity);
+    }
 }
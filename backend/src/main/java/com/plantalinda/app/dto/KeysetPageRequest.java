@@ -0,0 +1,32 @@
+package com.plantalinda.app.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Pedido de una página con paginación keyset.
+ *
+ * @param after posición del último elemento de la página anterior (null para la primera)
+ * @param limit tamaño de página, acotado a MAX_LIMIT
+ */
+public record KeysetPageRequest(KeysetCursor after, int limit) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    public static KeysetPageRequest of(String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return new KeysetPageRequest(cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor), size);
+    }
+
+    public boolean isFirstPage() {
+        return after == null;
+    }
+
+    /**
+     * Se pide un elemento de más para saber si existe una página siguiente.
+     */
+    public Pageable probe() {
+        return PageRequest.ofSize(limit + 1);
+    }
+}
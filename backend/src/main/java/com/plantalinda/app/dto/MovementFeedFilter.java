@@ -0,0 +1,21 @@
+package com.plantalinda.app.dto;
+
+import com.plantalinda.app.model.MovementType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros del feed de movimientos de la organización. Los null no filtran.
+ *
+ * @param from inicio del rango (inclusive)
+ * @param to   fin del rango (exclusive)
+ */
+public record MovementFeedFilter(MovementType type, Long inventoryItemId, Long batchId, Long userId,
+        LocalDateTime from, LocalDateTime to) {
+
+    public MovementFeedFilter {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.plantalinda.app.dto;
+
+import com.plantalinda.app.model.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTOs para las series de lecturas agregadas (gráficos de pH, EC, temperatura y humedad)
+ */
+public class ReadingSeriesDtos {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Series {
+        private Long batchId;
+        private RollupGranularity resolution;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private List<Point> points;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private MetricStats ph;
+        private MetricStats ec;
+        private MetricStats temperature;
+        private MetricStats humidity;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MetricStats {
+        private Double min;
+        private Double max;
+        private Double avg;
+        private long count;
+
+        // null cuando el bucket no tiene lecturas de la métrica
+        public static MetricStats of(Double min, Double max, double sum, long count) {
+            return count == 0 ? null : new MetricStats(min, max, sum / count, count);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.plantalinda.app.dto;
+
+import com.plantalinda.app.model.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadatos de un reporte, sin su cuerpo (se descarga de /reports/{id}/content).
+ * error solo viene en los FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSummaryResponse {
+    private Long id;
+    private ReportType type;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private Long contentSize;
+    private String error;
+}
@@ -0,0 +1,39 @@
+package com.plantalinda.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTOs para consultas de stock a una fecha y saldos de apertura/cierre de un período
+ */
+public class StockBalanceDtos {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StockAt {
+        private Long inventoryItemId;
+        private String inventoryItemName;
+        private String unit;
+        private LocalDateTime at;
+        private Double quantity;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Balance {
+        private Long inventoryItemId;
+        private String inventoryItemName;
+        private String unit;
+        private Double openingQuantity; // Stock al inicio del período (from)
+        private Double closingQuantity; // Stock al cierre del período (to)
+        private Double netChange;
+    }
+}
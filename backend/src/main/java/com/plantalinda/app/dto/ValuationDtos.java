@@ -0,0 +1,60 @@
+package com.plantalinda.app.dto;
+
+import com.plantalinda.app.model.UnitOfMeasure;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTOs de valoración de inventario a costo promedio ponderado
+ */
+public class ValuationDtos {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemValuation {
+        private Long inventoryItemId;
+        private String inventoryItemName;
+        private UnitOfMeasure unit;
+        private Double quantity;
+        private Double averageCost; // null si el item nunca tuvo costo
+        private Double value; // quantity * averageCost
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Summary {
+        private Double totalValue; // Suma de los items con costo conocido
+        private List<ItemValuation> items;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConsumedItem {
+        private Long inventoryItemId;
+        private String inventoryItemName;
+        private UnitOfMeasure unit;
+        private Double quantity; // Total consumido (positivo)
+        private Double cost; // Valorado al promedio vigente en cada salida
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchCost {
+        private Long batchId;
+        private String batchName;
+        private Double totalCost;
+        private List<ConsumedItem> items;
+    }
+}
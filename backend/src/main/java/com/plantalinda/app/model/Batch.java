@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -15,8 +18,21 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Entity
 @Table(name = "batch")
+@FilterDef(name = Batch.TENANT_FILTER, parameters = @ParamDef(name = Batch.TENANT_PARAM, type = Long.class))
+@Filter(name = Batch.TENANT_FILTER, condition = "organization_id = :" + Batch.TENANT_PARAM)
 public class Batch {
 
+    /**
+     * Filtro de Hibernate que acota las consultas a la organización de la petición.
+     * La definición es global: la usan todas las entidades con datos de un tenant
+     * y lo activa TenantFilterInterceptor.
+     */
+    public static final String TENANT_FILTER = "tenantFilter";
+    public static final String TENANT_PARAM = "tenantId";
+
+    // Estado de un lote en purga asíncrona: ya no aparece en los listados
+    public static final String STATUS_DELETING = "DELETING";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,7 +57,7 @@ public class Batch {
 
     private Double harvestYield; // Rendimiento en gramos
 
-    private String status; // ACTIVE, HARVESTED, COMPLETED
+    private String status; // ACTIVE, HARVESTED, COMPLETED, DELETING
 
     @Column(length = 1000)
     private String notes; // Notas generales del lote
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
 
 import java.time.LocalDateTime;
 
@@ -14,6 +15,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Entity
 @Table(name = "batch_log")
+// batch_log no tiene organization_id: se acota por la organización del lote
+@Filter(name = Batch.TENANT_FILTER, deduceAliasInjectionPoints = false,
+        condition = "{alias}.batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = :" + Batch.TENANT_PARAM + ")")
 public class BatchLog {
 
     @Id
@@ -0,0 +1,76 @@
+package com.plantalinda.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Agregados de las lecturas de bitácora de un lote por hora o por día.
+ *
+ * Se mantienen de forma incremental al escribir cada BatchLog (ver
+ * BatchReadingRollupService). Por métrica se guarda min/max/suma/cantidad; el
+ * promedio se calcula al leer para que las filas se puedan sumar.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "batch_reading_rollup")
+@Filter(name = Batch.TENANT_FILTER, deduceAliasInjectionPoints = false,
+        condition = "{alias}.batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = :" + Batch.TENANT_PARAM + ")")
+public class BatchReadingRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    private Double phMin;
+    private Double phMax;
+    @Column(nullable = false)
+    private double phSum;
+    @Column(nullable = false)
+    private long phCount;
+
+    private Double ecMin;
+    private Double ecMax;
+    @Column(nullable = false)
+    private double ecSum;
+    @Column(nullable = false)
+    private long ecCount;
+
+    private Double temperatureMin;
+    private Double temperatureMax;
+    @Column(nullable = false)
+    private double temperatureSum;
+    @Column(nullable = false)
+    private long temperatureCount;
+
+    private Double humidityMin;
+    private Double humidityMax;
+    @Column(nullable = false)
+    private double humiditySum;
+    @Column(nullable = false)
+    private long humidityCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "batch_id", nullable = false)
+        private Long batchId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 8)
+        private RollupGranularity granularity;
+
+        @Column(nullable = false)
+        private LocalDateTime bucketStart;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Filter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -15,6 +17,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Entity
 @Table(name = "inventory_item")
+@Filter(name = Batch.TENANT_FILTER, condition = "organization_id = :" + Batch.TENANT_PARAM)
 public class InventoryItem {
 
     @Id
@@ -38,6 +41,12 @@ public class InventoryItem {
     // Cantidad mínima (para alertas)
     private Double minimumQuantity;
 
+    // currentQuantity < minimumQuantity, mantenido en cada escritura de stock (índice parcial por organización)
+    @Builder.Default
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean belowMinimum = false;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private UnitOfMeasure unit;
@@ -58,6 +67,9 @@ public class InventoryItem {
     // Costo unitario (para reportes)
     private Double unitCost;
 
+    // Costo unitario promedio ponderado del stock, recalculado en cada entrada con costo
+    private Double averageCost;
+
     // Ubicación física
     private String location;
 
@@ -79,11 +91,13 @@ public class InventoryItem {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        belowMinimum = isLowStock();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        belowMinimum = isLowStock();
     }
 
     public boolean isLowStock() {
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
 
 import java.time.LocalDateTime;
 
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Entity
 @Table(name = "inventory_movement")
+@Filter(name = Batch.TENANT_FILTER, condition = "organization_id = :" + Batch.TENANT_PARAM)
 public class InventoryMovement {
 
     @Id
@@ -51,6 +53,9 @@ public class InventoryMovement {
     // Costo del movimiento (para compras)
     private Double cost;
 
+    // Costo unitario con el que se valoró: promedio vigente en salidas, costo de compra en entradas
+    private Double unitCost;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
@@ -58,6 +63,11 @@ public class InventoryMovement {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Multi-tenancy: Relación con la organización
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "organization_id")
+    private Organization organization;
+
     @PrePersist
     protected void onCreate() {
         if (timestamp == null) {
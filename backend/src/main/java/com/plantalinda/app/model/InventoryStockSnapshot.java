@@ -0,0 +1,50 @@
+package com.plantalinda.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Stock de un item al cierre de un día.
+ *
+ * Lo escribe InventorySnapshotService cada noche; las consultas de stock a
+ * una fecha parten del snapshot más cercano y suman los movimientos
+ * posteriores. Las filas se escriben por JDBC, la entidad solo describe la tabla.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "inventory_stock_snapshot")
+@Filter(name = Batch.TENANT_FILTER, condition = "organization_id = :" + Batch.TENANT_PARAM)
+public class InventoryStockSnapshot {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private Double quantity;
+
+    @Column(name = "organization_id")
+    private Long organizationId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "inventory_item_id", nullable = false)
+        private Long inventoryItemId;
+
+        // Stock al final de este día (válido desde el día siguiente a las 00:00)
+        @Column(nullable = false)
+        private LocalDate snapshotDate;
+    }
+}
@@ -8,5 +8,10 @@ public enum MovementType {
     SALE, // Venta
     LOSS, // Pérdida/Desperdicio
     TRANSFER, // Transferencia entre ubicaciones
-    ADJUSTMENT // Ajuste de inventario
+    ADJUSTMENT; // Ajuste de inventario
+
+    // Las salidas restan stock: su cantidad se guarda en negativo
+    public boolean isOutgoing() {
+        return this == USAGE || this == SALE || this == LOSS;
+    }
 }
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -19,6 +20,11 @@ import java.time.LocalDateTime;
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Report {
 
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -38,15 +44,31 @@ public class Report {
     @Column(nullable = false)
     private LocalDateTime endDate;
 
+    // Error de los FAILED y cuerpo de los reportes previos a report_content (V14)
     @Column(columnDefinition = "TEXT")
-    private String content; // JSON content
+    private String content;
+
+    // Cuerpo en gzip en report_content; aquí solo sus metadatos
+    private Long contentSize; // Bytes del JSON sin comprimir
+    private Long compressedSize;
+
+    @Column(length = 64)
+    private String contentEtag; // SHA-256 del gzip
 
     @Column(nullable = false)
-    private String status; // PENDING, COMPLETED, FAILED
+    private String status; // PENDING, RUNNING, COMPLETED, FAILED
 
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    private LocalDateTime startedAt; // Último intento tomado por un worker
+    private LocalDateTime completedAt;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts = 0;
+
     private String filePath; // Path to generated PDF/CSV
 }
@@ -0,0 +1,38 @@
+package com.plantalinda.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Cuerpo en gzip de un reporte (V14).
+ *
+ * Lo escribe y lo lee ReportContentStore por JDBC, en streaming; la entidad
+ * solo describe la tabla, así ddl-auto la crea en una base nueva. El
+ * STORAGE EXTERNAL de body lo fija V14.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "report_content")
+public class ReportContent {
+
+    @Id
+    @Column(name = "report_id")
+    private Long reportId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "report_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Report report;
+
+    @Column(nullable = false)
+    private byte[] body;
+}
@@ -57,6 +57,12 @@ public class User implements UserDetails {
     @Column(name = "deleted_by")
     private Long deletedBy;
 
+    // Versión de seguridad: se incrementa al cambiar rol, plan o al desactivar
+    // el usuario, invalidando los JWT emitidos con la versión anterior
+    @Builder.Default
+    @Column(name = "security_version")
+    private Long securityVersion = 0L;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
@@ -98,4 +104,11 @@ public class User implements UserDetails {
     public boolean isDeleted() {
         return deletedAt != null;
     }
+
+    /**
+     * Incrementa la versión de seguridad (revoca los tokens vigentes)
+     */
+    public void bumpSecurityVersion() {
+        securityVersion = (securityVersion != null ? securityVersion : 0L) + 1;
+    }
 }
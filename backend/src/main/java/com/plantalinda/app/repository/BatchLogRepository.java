@@ -1,17 +1,82 @@
 package com.plantalinda.app.repository;
 
+import com.plantalinda.app.dto.BatchLogResponse;
 import com.plantalinda.app.model.Batch;
 import com.plantalinda.app.model.BatchLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BatchLogRepository extends JpaRepository<BatchLog, Long> {
+
+    // Proyección de listados y exportación: l.batch.id es la FK, no hace join con batch
+    String RESPONSE = "SELECT new com.plantalinda.app.dto.BatchLogResponse(l.id, l.batch.id, l.timestamp, l.ph, "
+            + "l.ec, l.temperature, l.humidity, l.notes, l.photoUrl, l.stageAtTime) FROM BatchLog l ";
+
     List<BatchLog> findByBatchIdOrderByTimestampDesc(Long batchId);
 
+    @Query(RESPONSE + "WHERE l.batch.id = :batchId ORDER BY l.timestamp DESC")
+    List<BatchLogResponse> findResponsesByBatchId(@Param("batchId") Long batchId);
+
+    // Paginación keyset sobre (timestamp, id), índice idx_batch_log_batch_timestamp
+    @Query(RESPONSE + "WHERE l.batch.id = :batchId ORDER BY l.timestamp DESC, l.id DESC")
+    List<BatchLogResponse> findPageByBatchId(@Param("batchId") Long batchId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE l.batch.id = :batchId AND (l.timestamp, l.id) < (:timestamp, :id) "
+            + "ORDER BY l.timestamp DESC, l.id DESC")
+    List<BatchLogResponse> findPageByBatchIdAfter(@Param("batchId") Long batchId,
+            @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Pageable pageable);
+
     List<BatchLog> findByBatchIdOrderByTimestampAsc(Long batchId);
 
+    // Exportación: cursor de servidor con fetch size (requiere transacción abierta mientras se consume)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE + "WHERE l.batch.id = :batchId ORDER BY l.timestamp, l.id")
+    Stream<BatchLogResponse> streamByBatchId(@Param("batchId") Long batchId);
+
     List<BatchLog> findByBatchOrderByTimestampDesc(Batch batch);
+
+    /**
+     * Historial de todos los lotes del usuario creados en el período, en una
+     * sola consulta ordenada por (lote, timestamp DESC) para agruparlo en una
+     * pasada. Recorre idx_batch_log_batch_timestamp lote por lote.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id AS batchId, l.timestamp AS timestamp, l.type AS type, l.notes AS notes "
+            + "FROM BatchLog l JOIN l.batch b "
+            + "WHERE b.user.id = :userId AND b.createdAt BETWEEN :start AND :end "
+            + "ORDER BY b.id, l.timestamp DESC, l.id DESC")
+    Stream<TimelineView> streamTimelineByUserIdAndCreatedAtBetween(@Param("userId") Long userId,
+            @Param("start") LocalDateTime startDate, @Param("end") LocalDateTime endDate);
+
+    long countByBatchId(Long batchId);
+
+    @Query("SELECT l.photoUrl FROM BatchLog l WHERE l.batch.id = :batchId AND l.photoUrl IS NOT NULL")
+    List<String> findPhotoUrlsByBatchId(@Param("batchId") Long batchId);
+
+    // Borrado en una sola sentencia. SQL nativo: en HQL el filtro de tenant con {alias} no se resuelve en DELETE
+    @Modifying
+    @Query(value = "DELETE FROM batch_log WHERE batch_id = :batchId", nativeQuery = true)
+    int bulkDeleteByBatchId(@Param("batchId") Long batchId);
+
+    interface TimelineView {
+        Long getBatchId();
+
+        LocalDateTime getTimestamp();
+
+        String getType();
+
+        String getNotes();
+    }
 }
@@ -0,0 +1,22 @@
+package com.plantalinda.app.repository;
+
+import com.plantalinda.app.model.BatchReadingRollup;
+import com.plantalinda.app.model.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BatchReadingRollupRepository extends JpaRepository<BatchReadingRollup, BatchReadingRollup.Key> {
+
+    // Lectura por rango sobre la clave primaria (batch_id, granularity, bucket_start)
+    @Query("SELECT r FROM BatchReadingRollup r WHERE r.id.batchId = :batchId AND r.id.granularity = :granularity "
+            + "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to ORDER BY r.id.bucketStart")
+    List<BatchReadingRollup> findRange(@Param("batchId") Long batchId,
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -1,22 +1,138 @@
 package com.plantalinda.app.repository;
 
+import com.plantalinda.app.dto.BatchResponse;
 import com.plantalinda.app.model.Batch;
+import com.plantalinda.app.model.BatchStage;
 import com.plantalinda.app.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BatchRepository extends JpaRepository<Batch, Long> {
+
+    // Los lotes en purga asíncrona no se listan ni cuentan para el límite del plan
+    String NOT_DELETING = "(b.status IS NULL OR b.status <> '" + Batch.STATUS_DELETING + "')";
+
+    // Proyección de los listados: solo las columnas de BatchResponse, sin entidades gestionadas
+    String RESPONSE = "SELECT new com.plantalinda.app.dto.BatchResponse(b.id, b.name, b.strain, b.plantCount, "
+            + "b.currentStage, b.germinationDate, b.harvestDate, b.notes, b.createdAt) FROM Batch b ";
+
     List<Batch> findByUserId(Long userId);
 
     List<Batch> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     List<Batch> findByUserAndCreatedAtBetween(User user, LocalDateTime startDate, LocalDateTime endDate);
 
-    long countByOrganizationId(Long organizationId);
+    // Reportes: totales de los lotes del período en una sola fila
+    @Query("SELECT COUNT(b) AS total, "
+            + "COALESCE(SUM(CASE WHEN b.status = 'ACTIVE' THEN 1 ELSE 0 END), 0) AS active, "
+            + "COALESCE(SUM(CASE WHEN b.status = 'HARVESTED' THEN 1 ELSE 0 END), 0) AS harvested, "
+            + "COALESCE(SUM(b.harvestYield), 0.0) AS totalYield "
+            + "FROM Batch b WHERE b.user.id = :userId AND b.createdAt BETWEEN :start AND :end")
+    PeriodTotalsView summarizeByUserIdAndCreatedAtBetween(@Param("userId") Long userId,
+            @Param("start") LocalDateTime startDate, @Param("end") LocalDateTime endDate);
+
+    // Reporte de producción: filas leídas con cursor y escritas a medida que llegan
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id AS id, b.name AS name, b.strain AS strain, b.status AS status, "
+            + "b.plantCount AS plantCount, b.harvestYield AS harvestYield "
+            + "FROM Batch b WHERE b.user.id = :userId AND b.createdAt BETWEEN :start AND :end ORDER BY b.id")
+    Stream<ProductionView> streamProductionByUserIdAndCreatedAtBetween(@Param("userId") Long userId,
+            @Param("start") LocalDateTime startDate, @Param("end") LocalDateTime endDate);
+
+    // Reporte de trazabilidad: mismo criterio que BatchLogRepository.streamTimelineByUserIdAndCreatedAtBetween
+    @Query("SELECT b.id AS id, b.name AS name FROM Batch b "
+            + "WHERE b.user.id = :userId AND b.createdAt BETWEEN :start AND :end ORDER BY b.id")
+    List<NameView> findNamesByUserIdAndCreatedAtBetween(@Param("userId") Long userId,
+            @Param("start") LocalDateTime startDate, @Param("end") LocalDateTime endDate);
+
+    @Query("SELECT COUNT(b) FROM Batch b WHERE b.organization.id = :orgId AND " + NOT_DELETING)
+    long countByOrganizationId(@Param("orgId") Long organizationId);
+
+    // Búsqueda por id acotada a la organización (findById no aplica el filtro de tenant)
+    @Query("SELECT b FROM Batch b WHERE b.id = :id AND b.organization.id = :orgId AND " + NOT_DELETING)
+    Optional<Batch> findByIdAndOrganizationId(@Param("id") Long id, @Param("orgId") Long organizationId);
+
+    // Propiedad validada en la misma consulta por PK: un lote ajeno se comporta como uno inexistente
+    @Query("SELECT b FROM Batch b WHERE b.id = :id AND b.user.id = :userId AND " + NOT_DELETING)
+    Optional<Batch> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT COUNT(b) > 0 FROM Batch b WHERE b.id = :id AND b.user.id = :userId AND " + NOT_DELETING)
+    boolean existsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Para crear logs solo hace falta la etapa actual (el lote se referencia con getReferenceById)
+    @Query("SELECT b.currentStage FROM Batch b WHERE b.id = :id AND b.user.id = :userId AND " + NOT_DELETING)
+    Optional<BatchStage> findCurrentStageByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(RESPONSE + "WHERE b.organization.id = :orgId AND " + NOT_DELETING + " ORDER BY b.createdAt DESC")
+    List<BatchResponse> findResponsesByOrganizationId(@Param("orgId") Long organizationId);
+
+    // Paginación keyset sobre (createdAt, id), índice idx_batch_org_created
+    @Query(RESPONSE + "WHERE b.organization.id = :orgId AND " + NOT_DELETING
+            + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<BatchResponse> findPageByOrganizationId(@Param("orgId") Long organizationId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE b.organization.id = :orgId AND " + NOT_DELETING
+            + " AND (b.createdAt, b.id) < (:createdAt, :id) ORDER BY b.createdAt DESC, b.id DESC")
+    List<BatchResponse> findPageByOrganizationIdAfter(@Param("orgId") Long organizationId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Ingesta masiva: una sola consulta para validar la propiedad de todos los lotes de la petición
+    @Query("SELECT b.id AS id, b.currentStage AS currentStage FROM Batch b "
+            + "WHERE b.id IN :ids AND b.user.id = :userId AND " + NOT_DELETING)
+    List<StageView> findStagesByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Movimientos de varias líneas: valida de una vez los lotes referenciados y trae sus nombres
+    @Query("SELECT b.id AS id, b.name AS name FROM Batch b "
+            + "WHERE b.id IN :ids AND b.organization.id = :orgId AND " + NOT_DELETING)
+    List<NameView> findNamesByIdInAndOrganizationId(@Param("ids") Collection<Long> ids,
+            @Param("orgId") Long organizationId);
+
+    interface NameView {
+        Long getId();
+
+        String getName();
+    }
+
+    interface StageView {
+        Long getId();
+
+        BatchStage getCurrentStage();
+    }
+
+    interface PeriodTotalsView {
+        Long getTotal();
+
+        Long getActive();
+
+        Long getHarvested();
+
+        Double getTotalYield();
+    }
+
+    interface ProductionView {
+        Long getId();
+
+        String getName();
+
+        String getStrain();
+
+        String getStatus();
+
+        Integer getPlantCount();
 
-    List<Batch> findByOrganizationIdOrderByCreatedAtDesc(Long organizationId);
+        Double getHarvestYield();
+    }
 }
@@ -1,10 +1,23 @@
 package com.plantalinda.app.repository;
 
 import com.plantalinda.app.model.Diagnosis;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
     List<Diagnosis> findByUserId(Long userId);
+
+    // Paginación keyset sobre (createdAt, id), índice idx_diagnosis_user_created
+    @Query("SELECT d FROM Diagnosis d WHERE d.user.id = :userId ORDER BY d.createdAt DESC, d.id DESC")
+    List<Diagnosis> findPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT d FROM Diagnosis d WHERE d.user.id = :userId AND (d.createdAt, d.id) < (:createdAt, :id) "
+            + "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Diagnosis> findPageByUserIdAfter(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -1,17 +1,30 @@
 package com.plantalinda.app.repository;
 
+import com.plantalinda.app.dto.InventoryItemResponse;
+import com.plantalinda.app.dto.ValuationDtos;
 import com.plantalinda.app.model.InventoryItem;
 import com.plantalinda.app.model.InventoryItemType;
 import com.plantalinda.app.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
+
+    // Proyección de los listados: columnas de InventoryItemResponse con el nombre del lote en la misma consulta
+    String RESPONSE = "SELECT new com.plantalinda.app.dto.InventoryItemResponse(i.id, i.name, i.type, "
+            + "i.description, i.currentQuantity, i.minimumQuantity, i.unit, i.strain, i.brand, i.supplier, "
+            + "i.expirationDate, b.id, b.name, i.unitCost, i.location, i.createdAt, i.updatedAt) "
+            + "FROM InventoryItem i LEFT JOIN i.batch b ";
+
     // Legacy methods (kept for backward compatibility during migration)
     List<InventoryItem> findByUserIdOrderByCreatedAtDesc(Long userId);
 
@@ -22,16 +35,65 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     List<InventoryItem> findByUser(User user);
 
     // Multi-tenancy: Organization-based queries (preferred)
-    List<InventoryItem> findByOrganizationIdOrderByCreatedAtDesc(Long organizationId);
+    @Query(RESPONSE + "WHERE i.organization.id = :orgId ORDER BY i.createdAt DESC")
+    List<InventoryItemResponse> findResponsesByOrganizationId(@Param("orgId") Long organizationId);
+
+    // Paginación keyset sobre (createdAt, id), índice idx_inventory_item_org_created
+    @Query(RESPONSE + "WHERE i.organization.id = :orgId ORDER BY i.createdAt DESC, i.id DESC")
+    List<InventoryItemResponse> findPageByOrganizationId(@Param("orgId") Long organizationId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE i.organization.id = :orgId AND (i.createdAt, i.id) < (:createdAt, :id) "
+            + "ORDER BY i.createdAt DESC, i.id DESC")
+    List<InventoryItemResponse> findPageByOrganizationIdAfter(@Param("orgId") Long organizationId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 
-    List<InventoryItem> findByOrganizationIdAndType(Long organizationId, InventoryItemType type);
+    @Query(RESPONSE + "WHERE i.organization.id = :orgId AND i.type = :type")
+    List<InventoryItemResponse> findResponsesByOrganizationIdAndType(@Param("orgId") Long organizationId,
+            @Param("type") InventoryItemType type);
 
     long countByOrganizationId(Long organizationId);
 
-    @Query("SELECT i FROM InventoryItem i WHERE i.organization.id = :orgId AND i.minimumQuantity IS NOT NULL AND i.currentQuantity < i.minimumQuantity")
-    List<InventoryItem> findLowStockItemsByOrganization(@Param("orgId") Long organizationId);
+    // Búsqueda por id acotada a la organización (findById no aplica el filtro de tenant)
+    Optional<InventoryItem> findByIdAndOrganizationId(Long id, Long organizationId);
+
+    boolean existsByIdAndOrganizationId(Long id, Long organizationId);
+
+    // Marca mantenida al escribir el stock: recorre solo el índice parcial idx_inventory_item_org_below_minimum
+    @Query(RESPONSE + "WHERE i.organization.id = :orgId AND i.belowMinimum = true")
+    List<InventoryItemResponse> findLowStockItemsByOrganization(@Param("orgId") Long organizationId);
+
+    // Valoración: cantidad y costo promedio se mantienen al registrar movimientos, sin recorrer el historial
+    @Query("SELECT new com.plantalinda.app.dto.ValuationDtos$ItemValuation(i.id, i.name, i.unit, i.currentQuantity, "
+            + "i.averageCost, i.currentQuantity * i.averageCost) "
+            + "FROM InventoryItem i WHERE i.organization.id = :orgId ORDER BY i.name, i.id")
+    List<ValuationDtos.ItemValuation> findValuationsByOrganizationId(@Param("orgId") Long organizationId);
+
+    // Reportes: totales del inventario del usuario en una sola fila
+    @Query("SELECT COUNT(i) AS total, COALESCE(SUM(CASE WHEN i.belowMinimum = true THEN 1 ELSE 0 END), 0) AS lowStock "
+            + "FROM InventoryItem i WHERE i.user.id = :userId")
+    StockTotalsView summarizeByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT i.type AS type, COUNT(i) AS count FROM InventoryItem i WHERE i.user.id = :userId "
+            + "GROUP BY i.type ORDER BY i.type")
+    List<TypeCountView> countByTypeForUserId(@Param("userId") Long userId);
 
     // Legacy query (deprecated - use findLowStockItemsByOrganization)
     @Query("SELECT i FROM InventoryItem i WHERE i.user.id = :userId AND i.minimumQuantity IS NOT NULL AND i.currentQuantity < i.minimumQuantity")
     List<InventoryItem> findLowStockItems(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE inventory_item SET batch_id = NULL WHERE batch_id = :batchId", nativeQuery = true)
+    int clearBatchReferences(@Param("batchId") Long batchId);
+
+    interface StockTotalsView {
+        Long getTotal();
+
+        Long getLowStock();
+    }
+
+    interface TypeCountView {
+        InventoryItemType getType();
+
+        Long getCount();
+    }
 }
@@ -0,0 +1,20 @@
+package com.plantalinda.app.repository;
+
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.MovementFeedFilter;
+
+import java.util.List;
+
+/**
+ * Feed de movimientos de la organización con filtros opcionales.
+ */
+public interface InventoryMovementFeedRepository {
+
+    /**
+     * Página del feed ordenada por (timestamp DESC, id DESC), con hasta
+     * page.limit() + 1 filas para CursorPage.of.
+     */
+    List<InventoryMovementResponse> findFeedPage(Long organizationId, MovementFeedFilter filter,
+            KeysetPageRequest page);
+}
@@ -0,0 +1,68 @@
+package com.plantalinda.app.repository;
+
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.MovementFeedFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La consulta lleva solo las condiciones de los filtros presentes, sin
+ * "(:param IS NULL OR ...)": así Postgres elige el índice compuesto que
+ * corresponde a cada combinación (V12) en vez de un plan genérico.
+ */
+class InventoryMovementFeedRepositoryImpl implements InventoryMovementFeedRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<InventoryMovementResponse> findFeedPage(Long organizationId, MovementFeedFilter filter,
+            KeysetPageRequest page) {
+        StringBuilder jpql = new StringBuilder(InventoryMovementRepository.RESPONSE)
+                .append("WHERE m.organization.id = :orgId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("orgId", organizationId);
+
+        if (filter.type() != null) {
+            jpql.append(" AND m.type = :type");
+            params.put("type", filter.type());
+        }
+        if (filter.inventoryItemId() != null) {
+            jpql.append(" AND m.inventoryItem.id = :itemId");
+            params.put("itemId", filter.inventoryItemId());
+        }
+        if (filter.batchId() != null) {
+            jpql.append(" AND m.batch.id = :batchId");
+            params.put("batchId", filter.batchId());
+        }
+        if (filter.userId() != null) {
+            jpql.append(" AND m.user.id = :userId");
+            params.put("userId", filter.userId());
+        }
+        if (filter.from() != null) {
+            jpql.append(" AND m.timestamp >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" AND m.timestamp < :to");
+            params.put("to", filter.to());
+        }
+        if (!page.isFirstPage()) {
+            jpql.append(" AND (m.timestamp, m.id) < (:afterTimestamp, :afterId)");
+            params.put("afterTimestamp", page.after().timestamp());
+            params.put("afterId", page.after().id());
+        }
+        jpql.append(" ORDER BY m.timestamp DESC, m.id DESC");
+
+        TypedQuery<InventoryMovementResponse> query = entityManager.createQuery(jpql.toString(),
+                InventoryMovementResponse.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(page.probe().getPageSize()).getResultList();
+    }
+}
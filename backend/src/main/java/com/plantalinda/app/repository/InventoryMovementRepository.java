@@ -1,16 +1,59 @@
 package com.plantalinda.app.repository;
 
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.dto.ValuationDtos;
 import com.plantalinda.app.model.InventoryMovement;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long>,
+        InventoryMovementFeedRepository {
+
+    // Proyección de listados y exportación: nombres de item y lote por join, sin N+1
+    String RESPONSE = "SELECT new com.plantalinda.app.dto.InventoryMovementResponse(m.id, it.id, it.name, m.type, "
+            + "m.quantity, m.previousQuantity, m.newQuantity, m.notes, b.id, b.name, m.cost, m.timestamp) "
+            + "FROM InventoryMovement m JOIN m.inventoryItem it LEFT JOIN m.batch b ";
+
     List<InventoryMovement> findByInventoryItemIdOrderByTimestampDesc(Long inventoryItemId);
 
-    List<InventoryMovement> findByUserIdOrderByTimestampDesc(Long userId);
+    @Query(RESPONSE + "WHERE it.id = :itemId ORDER BY m.timestamp DESC")
+    List<InventoryMovementResponse> findResponsesByInventoryItemId(@Param("itemId") Long inventoryItemId);
+
+    @Query(RESPONSE + "WHERE m.user.id = :userId ORDER BY m.timestamp DESC")
+    List<InventoryMovementResponse> findResponsesByUserId(@Param("userId") Long userId);
 
     List<InventoryMovement> findByBatchIdOrderByTimestampDesc(Long batchId);
+
+    // Exportación: cursor de servidor con fetch size (requiere transacción abierta mientras se consume)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE + "WHERE m.user.id = :userId ORDER BY m.timestamp, m.id")
+    Stream<InventoryMovementResponse> streamByUserId(@Param("userId") Long userId);
+
+    // Costo de lo consumido por un lote: cada salida quedó valorada (unit_cost) al promedio de su momento
+    @Query("SELECT new com.plantalinda.app.dto.ValuationDtos$ConsumedItem(it.id, it.name, it.unit, "
+            + "-SUM(m.quantity), -SUM(m.quantity * m.unitCost)) "
+            + "FROM InventoryMovement m JOIN m.inventoryItem it "
+            + "WHERE m.batch.id = :batchId AND m.organization.id = :orgId AND m.quantity < 0 "
+            + "GROUP BY it.id, it.name, it.unit ORDER BY it.name, it.id")
+    List<ValuationDtos.ConsumedItem> findConsumptionByBatchId(@Param("batchId") Long batchId,
+            @Param("orgId") Long organizationId);
+
+    @Modifying
+    @Query(value = "DELETE FROM inventory_movement WHERE inventory_item_id = :itemId", nativeQuery = true)
+    int bulkDeleteByInventoryItemId(@Param("itemId") Long inventoryItemId);
+
+    // El historial de stock se conserva al borrar un lote: solo se quita la referencia
+    @Modifying
+    @Query(value = "UPDATE inventory_movement SET batch_id = NULL WHERE batch_id = :batchId", nativeQuery = true)
+    int clearBatchReferences(@Param("batchId") Long batchId);
 }
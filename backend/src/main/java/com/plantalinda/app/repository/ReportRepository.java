@@ -1,13 +1,58 @@
 package com.plantalinda.app.repository;
 
+import com.plantalinda.app.dto.ReportSummaryResponse;
 import com.plantalinda.app.model.Report;
-import com.plantalinda.app.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Long> {
-    List<Report> findByUserOrderByCreatedAtDesc(User user);
+
+    // Solo metadatos: el contenido de los COMPLETED (legacy) no sale de la base
+    String SUMMARY = "SELECT new com.plantalinda.app.dto.ReportSummaryResponse(r.id, r.type, r.startDate, "
+            + "r.endDate, r.status, r.createdAt, r.completedAt, r.contentSize, "
+            + "CASE WHEN r.status = 'FAILED' THEN r.content END) FROM Report r ";
+
+    @Query(SUMMARY + "WHERE r.user.id = :userId ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReportSummaryResponse> findPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE r.user.id = :userId AND (r.createdAt, r.id) < (:createdAt, :id) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReportSummaryResponse> findPageByUserIdAfter(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE r.id = :id AND r.user.id = :userId")
+    Optional<ReportSummaryResponse> findSummaryByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    Optional<Report> findByIdAndUserId(Long id, Long userId);
+
+    // Resultado de un intento de la cola: solo si sigue RUNNING con el mismo número de intento
+    String OWN_ATTEMPT = " WHERE r.id = :id AND r.status = '" + Report.STATUS_RUNNING + "' AND r.attempts = :attempts";
+
+    // Bloquea el reporte mientras el intento guarda su cuerpo; vacío si el intento ya no es el vigente
+    @Query(value = "SELECT id FROM reports WHERE id = :id AND status = '" + Report.STATUS_RUNNING
+            + "' AND attempts = :attempts FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockAttempt(@Param("id") Long id, @Param("attempts") int attempts);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.status = '" + Report.STATUS_COMPLETED + "', r.content = NULL, "
+            + "r.contentSize = :size, r.compressedSize = :compressedSize, r.contentEtag = :etag, "
+            + "r.completedAt = :completedAt" + OWN_ATTEMPT)
+    int completeAttempt(@Param("id") Long id, @Param("attempts") int attempts, @Param("size") long size,
+            @Param("compressedSize") long compressedSize, @Param("etag") String etag,
+            @Param("completedAt") LocalDateTime completedAt);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.status = '" + Report.STATUS_FAILED + "', r.content = :error, "
+            + "r.completedAt = :completedAt" + OWN_ATTEMPT)
+    int failAttempt(@Param("id") Long id, @Param("attempts") int attempts, @Param("error") String error,
+            @Param("completedAt") LocalDateTime completedAt);
 }
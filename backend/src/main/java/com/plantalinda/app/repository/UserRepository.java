@@ -3,6 +3,7 @@ package com.plantalinda.app.repository;
 import com.plantalinda.app.model.Organization;
 import com.plantalinda.app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -26,4 +27,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByOrganization(Organization organization);
 
     long countByOrganization(Organization organization);
+
+    // Security version (revocación de tokens)
+
+    /**
+     * Versión de seguridad vigente de un usuario activo.
+     * Vacío si el usuario no existe o fue desactivado.
+     */
+    @Query("SELECT COALESCE(u.securityVersion, 0) FROM User u WHERE u.id = :id AND u.active = true AND u.deletedAt IS NULL")
+    Optional<Long> findActiveSecurityVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.securityVersion = COALESCE(u.securityVersion, 0) + 1 WHERE u.organization.id = :orgId")
+    int incrementSecurityVersionByOrganizationId(@Param("orgId") Long organizationId);
 }
@@ -0,0 +1,101 @@
+package com.plantalinda.app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Registro de "versiones de seguridad" por usuario.
+ *
+ * Cada JWT lleva la versión vigente al momento de emitirse (claim "sv").
+ * Cambiar el rol, desactivar al usuario o cambiar el plan de la organización
+ * incrementa la versión y deja inválidos los tokens anteriores.
+ *
+ * Las versiones se cachean en memoria con un TTL corto: en un despliegue con
+ * varias réplicas, una revocación tarda como máximo ese TTL en propagarse.
+ */
+@Slf4j
+@Service
+public class SecurityVersionService {
+
+    private static final long REVOKED = -1L;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Long> versions;
+
+    public SecurityVersionService(
+            UserRepository userRepository,
+            @Value("${jwt.security-version-cache.ttl:30s}") Duration ttl,
+            @Value("${jwt.security-version-cache.max-size:100000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "security.versions");
+    }
+
+    /**
+     * Verifica si la versión del token coincide con la versión vigente del usuario
+     */
+    public boolean isCurrent(Long userId, Long tokenVersion) {
+        if (userId == null || tokenVersion == null) {
+            return false;
+        }
+        long current = versions.get(userId,
+                id -> userRepository.findActiveSecurityVersionById(id).orElse(REVOKED));
+        return current != REVOKED && current == tokenVersion;
+    }
+
+    /**
+     * Revoca los tokens de un usuario. El llamador debe persistir la entidad.
+     */
+    public void revoke(User user) {
+        user.bumpSecurityVersion();
+        evictAfterCommit(user.getId());
+        log.debug("Security version bumped for user {}", user.getId());
+    }
+
+    /**
+     * Revoca los tokens de todos los usuarios de una organización (ej: cambio de plan)
+     */
+    public void revokeOrganization(Long organizationId) {
+        int updated = userRepository.incrementSecurityVersionByOrganizationId(organizationId);
+        evictAfterCommit(null);
+        log.info("Security version bumped for {} users of organization {}", updated, organizationId);
+    }
+
+    private void evictAfterCommit(Long userId) {
+        Runnable eviction = () -> {
+            if (userId != null) {
+                versions.invalidate(userId);
+            } else {
+                versions.invalidateAll();
+            }
+        };
+
+        // Invalidar después del commit para no volver a cachear la versión anterior
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
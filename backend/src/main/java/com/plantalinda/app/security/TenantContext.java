@@ -3,18 +3,27 @@ package com.plantalinda.app.security;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.Callable;
+
 /**
  * Contexto de tenant (organización) para el thread actual.
  * Permite mantener el ID de la organización durante toda la petición HTTP.
  * 
  * IMPORTANTE: Este contexto se limpia automáticamente después de cada petición
  * para evitar fugas de datos entre requests.
+ *
+ * Preferir runWithTenant/callWithTenant: el tenant queda acotado al bloque y se
+ * restaura el valor anterior al salir, igual que un ScopedValue. Con virtual
+ * threads cada petición tiene su propio thread, así que el ThreadLocal vive lo
+ * que dura la petición; para tareas en otros threads el tenant se propaga
+ * explícitamente con TenantTaskDecorator.
  */
 @Slf4j
 @Component
 public class TenantContext {
 
     private static final ThreadLocal<Long> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> crossTenant = new ThreadLocal<>();
 
     /**
      * Establece el ID de la organización para el thread actual
@@ -28,6 +37,68 @@ public class TenantContext {
         }
     }
 
+    /**
+     * Ejecuta la tarea con el tenant indicado y restaura el contexto anterior al terminar
+     */
+    public static void runWithTenant(Long tenantId, Runnable task) {
+        Long previous = currentTenant.get();
+        bind(tenantId);
+        try {
+            task.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Igual que runWithTenant, devolviendo el resultado de la tarea
+     */
+    public static <T> T callWithTenant(Long tenantId, Callable<T> task) throws Exception {
+        Long previous = currentTenant.get();
+        bind(tenantId);
+        try {
+            return task.call();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Ejecuta una tarea de fondo que abarca todas las organizaciones (purgas,
+     * snapshots, cola de reportes), sin tenant. En modo RLS sus conexiones usan
+     * el rol de fondo con BYPASSRLS; fuera de este bloque, sin tenant no se ve
+     * ninguna fila.
+     */
+    public static void runCrossTenant(Runnable task) {
+        Long previous = currentTenant.get();
+        boolean wasCrossTenant = isCrossTenant();
+        bind(null);
+        crossTenant.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            if (!wasCrossTenant) {
+                crossTenant.remove();
+            }
+            bind(previous);
+        }
+    }
+
+    /**
+     * Verifica si el thread ejecuta una tarea de fondo de todas las organizaciones
+     */
+    public static boolean isCrossTenant() {
+        return crossTenant.get() != null;
+    }
+
+    private static void bind(Long tenantId) {
+        if (tenantId != null) {
+            currentTenant.set(tenantId);
+        } else {
+            currentTenant.remove();
+        }
+    }
+
     /**
      * Obtiene el ID de la organización del thread actual
      */
@@ -56,5 +127,6 @@ public class TenantContext {
             log.debug("Clearing tenant context: {}", tenantId);
         }
         currentTenant.remove();
+        crossTenant.remove();
     }
 }
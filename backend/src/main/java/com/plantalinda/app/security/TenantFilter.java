@@ -21,7 +21,7 @@ import java.io.IOException;
  * 1. Extrae el usuario autenticado del SecurityContext
  * 2. Obtiene su organización
  * 3. Establece el TenantContext para toda la petición
- * 4. Limpia el contexto al finalizar (crítico para seguridad)
+ * 4. Restaura el contexto al finalizar (crítico para seguridad)
  * 
  * SEGURIDAD: Este filtro garantiza que cada petición solo pueda acceder
  * a datos de la organización del usuario autenticado.
@@ -37,33 +37,36 @@ public class TenantFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        try {
-            // Obtener usuario autenticado
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Obtener usuario autenticado
+        Long organizationId = null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            if (authentication != null && authentication.isAuthenticated()
-                    && authentication.getPrincipal() instanceof User) {
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof User) {
 
-                User user = (User) authentication.getPrincipal();
+            User user = (User) authentication.getPrincipal();
 
-                if (user.getOrganization() != null) {
-                    Long organizationId = user.getOrganization().getId();
-                    TenantContext.setTenantId(organizationId);
+            if (user.getOrganization() != null) {
+                organizationId = user.getOrganization().getId();
 
-                    log.debug("Tenant context set for user: {} (org: {})",
-                            user.getEmail(), organizationId);
-                } else {
-                    log.warn("User {} has no organization assigned", user.getEmail());
-                }
+                log.debug("Tenant context set for user: {} (org: {})",
+                        user.getEmail(), organizationId);
+            } else {
+                log.warn("User {} has no organization assigned", user.getEmail());
             }
+        }
 
-            // Continuar con la cadena de filtros
-            filterChain.doFilter(request, response);
-
-        } finally {
-            // CRÍTICO: Siempre limpiar el contexto al finalizar
-            // Esto previene fugas de datos entre requests
-            TenantContext.clear();
+        // El tenant queda acotado al resto de la cadena y se restaura al salir,
+        // lo que previene fugas de datos entre requests
+        try {
+            TenantContext.callWithTenant(organizationId, () -> {
+                filterChain.doFilter(request, response);
+                return null;
+            });
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
         }
     }
 
@@ -0,0 +1,42 @@
+package com.plantalinda.app.security;
+
+import com.plantalinda.app.model.Batch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Activa el filtro de tenant de Hibernate en la sesión de la petición.
+ *
+ * Todas las consultas JPQL/derivadas sobre entidades con datos de un tenant
+ * (Batch, BatchLog, InventoryItem, InventoryMovement, Diagnosis, Notification)
+ * quedan acotadas en SQL a la organización de TenantContext.
+ *
+ * Depende de open-in-view: la sesión ligada a la petición es la que usan luego
+ * los servicios. findById (em.find) no aplica filtros, por eso los repositorios
+ * exponen búsquedas por id y organización.
+ */
+@Slf4j
+@Component
+public class TenantFilterInterceptor implements HandlerInterceptor {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        if (TenantContext.hasTenant()) {
+            entityManager.unwrap(Session.class)
+                    .enableFilter(Batch.TENANT_FILTER)
+                    .setParameter(Batch.TENANT_PARAM, TenantContext.getTenantId());
+        }
+        return true;
+    }
+}
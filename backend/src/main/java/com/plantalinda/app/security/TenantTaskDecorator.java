@@ -0,0 +1,16 @@
+package com.plantalinda.app.security;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Propaga el tenant del thread que encola la tarea al thread que la ejecuta
+ * (executors de @Async y tareas lanzadas desde una petición).
+ */
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Long tenantId = TenantContext.hasTenant() ? TenantContext.getTenantId() : null;
+        return () -> TenantContext.runWithTenant(tenantId, runnable);
+    }
+}
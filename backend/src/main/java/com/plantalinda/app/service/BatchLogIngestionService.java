@@ -0,0 +1,174 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.BulkBatchLogDtos.BulkIngestResponse;
+import com.plantalinda.app.dto.BulkBatchLogDtos.Reading;
+import com.plantalinda.app.dto.BulkBatchLogDtos.RowResult;
+import com.plantalinda.app.model.BatchStage;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.BatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingesta masiva de lecturas de sensores en batch_log.
+ *
+ * La propiedad de los lotes se valida con una sola consulta para todos los
+ * lotes distintos de la petición. Las filas se insertan por JDBC con
+ * batchUpdate: BatchLog usa ids IDENTITY, lo que impide que Hibernate agrupe
+ * los INSERT. Con reWriteBatchedInserts el driver de Postgres reescribe cada
+ * lote como un único INSERT multi-fila.
+ */
+@Slf4j
+@Service
+public class BatchLogIngestionService {
+
+    private static final String INSERT_LOG = "INSERT INTO batch_log "
+            + "(batch_id, \"timestamp\", ph, ec, temperature, humidity, notes, stage_at_time, type) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Tolerancia para relojes de gateways algo adelantados
+    private static final long MAX_CLOCK_SKEW_MINUTES = 5;
+    private static final int MAX_NOTES_LENGTH = 2000;
+
+    private final BatchRepository batchRepository;
+    private final BatchReadingRollupService rollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxReadings;
+    private final int jdbcBatchSize;
+
+    public BatchLogIngestionService(
+            BatchRepository batchRepository,
+            BatchReadingRollupService rollupService,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.batch-logs.bulk.max-readings:5000}") int maxReadings,
+            @Value("${app.batch-logs.bulk.jdbc-batch-size:500}") int jdbcBatchSize) {
+        this.batchRepository = batchRepository;
+        this.rollupService = rollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxReadings = maxReadings;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Transactional
+    public BulkIngestResponse ingest(List<Reading> readings, User user) {
+        if (readings == null || readings.isEmpty()) {
+            throw new IllegalArgumentException("No readings to ingest");
+        }
+        if (readings.size() > maxReadings) {
+            throw new IllegalArgumentException("Too many readings in one request (max " + maxReadings + ")");
+        }
+
+        Map<Long, BatchStage> ownedStages = loadOwnedStages(readings, user);
+        LocalDateTime receivedAt = LocalDateTime.now();
+
+        List<RowResult> results = new ArrayList<>(readings.size());
+        List<PendingRow> accepted = new ArrayList<>(readings.size());
+        for (int i = 0; i < readings.size(); i++) {
+            Reading reading = readings.get(i);
+            String error = validate(reading, ownedStages, receivedAt);
+            if (error != null) {
+                results.add(RowResult.builder().index(i).accepted(false).error(error).build());
+                continue;
+            }
+            LocalDateTime timestamp = reading.getTimestamp() != null ? reading.getTimestamp() : receivedAt;
+            accepted.add(new PendingRow(reading, timestamp, ownedStages.get(reading.getBatchId())));
+            results.add(RowResult.builder().index(i).accepted(true).build());
+        }
+
+        if (!accepted.isEmpty()) {
+            insert(accepted);
+            rollupService.record(accepted.stream()
+                    .map(row -> new BatchReadingRollupService.Sample(row.reading().getBatchId(), row.timestamp(),
+                            row.reading().getPh(), row.reading().getEc(), row.reading().getTemperature(),
+                            row.reading().getHumidity()))
+                    .toList());
+        }
+        log.info("Bulk ingest by {}: {} readings accepted, {} rejected",
+                user.getEmail(), accepted.size(), readings.size() - accepted.size());
+
+        return BulkIngestResponse.builder()
+                .accepted(accepted.size())
+                .rejected(readings.size() - accepted.size())
+                .results(results)
+                .build();
+    }
+
+    private Map<Long, BatchStage> loadOwnedStages(List<Reading> readings, User user) {
+        Set<Long> batchIds = readings.stream()
+                .filter(Objects::nonNull)
+                .map(Reading::getBatchId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (batchIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, BatchStage> stages = new HashMap<>();
+        for (BatchRepository.StageView view : batchRepository.findStagesByIdInAndUserId(batchIds, user.getId())) {
+            stages.put(view.getId(), view.getCurrentStage());
+        }
+        return stages;
+    }
+
+    private String validate(Reading reading, Map<Long, BatchStage> ownedStages, LocalDateTime receivedAt) {
+        if (reading == null) {
+            return "Empty reading";
+        }
+        if (reading.getBatchId() == null) {
+            return "batchId is required";
+        }
+        // Lotes ajenos e inexistentes dan el mismo error, como en la creación individual
+        if (!ownedStages.containsKey(reading.getBatchId())) {
+            return "Batch not found";
+        }
+        if (reading.getPh() == null && reading.getEc() == null && reading.getTemperature() == null
+                && reading.getHumidity() == null && reading.getNotes() == null) {
+            return "Reading has no measurements";
+        }
+        if (reading.getPh() != null && (reading.getPh() < 0 || reading.getPh() > 14)) {
+            return "ph out of range";
+        }
+        if (reading.getHumidity() != null && (reading.getHumidity() < 0 || reading.getHumidity() > 100)) {
+            return "humidity out of range";
+        }
+        if (reading.getNotes() != null && reading.getNotes().length() > MAX_NOTES_LENGTH) {
+            return "notes too long";
+        }
+        if (reading.getTimestamp() != null
+                && reading.getTimestamp().isAfter(receivedAt.plusMinutes(MAX_CLOCK_SKEW_MINUTES))) {
+            return "timestamp is in the future";
+        }
+        return null;
+    }
+
+    private void insert(List<PendingRow> rows) {
+        jdbcTemplate.batchUpdate(INSERT_LOG, rows, jdbcBatchSize, (ps, row) -> {
+            Reading reading = row.reading();
+            ps.setLong(1, reading.getBatchId());
+            ps.setTimestamp(2, Timestamp.valueOf(row.timestamp()));
+            ps.setObject(3, reading.getPh(), Types.DOUBLE);
+            ps.setObject(4, reading.getEc(), Types.DOUBLE);
+            ps.setObject(5, reading.getTemperature(), Types.DOUBLE);
+            ps.setObject(6, reading.getHumidity(), Types.DOUBLE);
+            ps.setString(7, reading.getNotes());
+            ps.setString(8, row.stage() != null ? row.stage().name() : null);
+            ps.setString(9, reading.getType());
+        });
+    }
+
+    private record PendingRow(Reading reading, LocalDateTime timestamp, BatchStage stage) {
+    }
+}
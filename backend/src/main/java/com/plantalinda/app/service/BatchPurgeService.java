@@ -0,0 +1,127 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.model.Batch;
+import com.plantalinda.app.security.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Purga asíncrona de lotes grandes.
+ *
+ * BatchService marca el lote como DELETING y responde de inmediato; aquí se
+ * borran sus logs en bloques de chunk-size filas, cada uno en su propia
+ * transacción, y al final la fila del lote. Las fotos de cada bloque se
+ * borran tras su commit. Un barrido periódico retoma las purgas que quedaron
+ * a medias (reinicio, error), así que el borrado es idempotente.
+ */
+@Slf4j
+@Service
+public class BatchPurgeService {
+
+    private static final String DELETE_LOG_CHUNK = "DELETE FROM batch_log WHERE id IN "
+            + "(SELECT id FROM batch_log WHERE batch_id = ? LIMIT ?) RETURNING photo_url";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FileStorageService fileStorageService;
+    private final TaskExecutor taskExecutor;
+    private final long asyncThreshold;
+    private final int chunkSize;
+
+    // Purgas en curso en esta réplica, para que el barrido no duplique la lanzada tras el commit
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+
+    public BatchPurgeService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            FileStorageService fileStorageService,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+            @Value("${app.batches.purge.async-threshold:5000}") long asyncThreshold,
+            @Value("${app.batches.purge.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fileStorageService = fileStorageService;
+        this.taskExecutor = taskExecutor;
+        this.asyncThreshold = asyncThreshold;
+        this.chunkSize = chunkSize;
+    }
+
+    /** Si un lote con esta cantidad de logs debe borrarse en segundo plano. */
+    public boolean shouldPurgeAsync(long logCount) {
+        return logCount > asyncThreshold;
+    }
+
+    /** Lanza la purga cuando confirme la transacción que marcó el lote como DELETING. */
+    public void purgeAfterCommit(Long batchId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                purgeAsync(batchId);
+            }
+        });
+    }
+
+    /** Relanza en el executor las purgas pendientes; el hilo del scheduler no queda ocupado borrando. */
+    @Scheduled(fixedDelayString = "${app.batches.purge.sweep-interval:PT1M}")
+    public void resumePendingPurges() {
+        TenantContext.runCrossTenant(() -> {
+            List<Long> pending = jdbcTemplate.queryForList("SELECT id FROM batch WHERE status = ?", Long.class,
+                    Batch.STATUS_DELETING);
+            pending.stream()
+                    .filter(batchId -> !inProgress.contains(batchId))
+                    .forEach(this::purgeAsync);
+        });
+    }
+
+    private void purgeAsync(Long batchId) {
+        taskExecutor.execute(() -> TenantContext.runCrossTenant(() -> purge(batchId)));
+    }
+
+    void purge(Long batchId) {
+        if (!inProgress.add(batchId)) {
+            return;
+        }
+        try {
+            long deletedLogs = 0;
+            int deleted;
+            do {
+                List<String> photos = transactionTemplate.execute(status -> {
+                    List<String> photoUrls = jdbcTemplate.queryForList(DELETE_LOG_CHUNK, String.class,
+                            batchId, chunkSize);
+                    fileStorageService.deleteAfterCommit(photoUrls.stream().filter(Objects::nonNull).toList());
+                    return photoUrls;
+                });
+                deleted = photos == null ? 0 : photos.size();
+                deletedLogs += deleted;
+            } while (deleted == chunkSize);
+
+            // Movimientos o items que apuntaron al lote mientras estaba en DELETING
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("UPDATE inventory_movement SET batch_id = NULL WHERE batch_id = ?", batchId);
+                jdbcTemplate.update("UPDATE inventory_item SET batch_id = NULL WHERE batch_id = ?", batchId);
+                jdbcTemplate.update("DELETE FROM batch WHERE id = ? AND status = ?", batchId, Batch.STATUS_DELETING);
+            });
+            log.info("Purged batch {} ({} logs)", batchId, deletedLogs);
+        } catch (RuntimeException e) {
+            // Se reintenta en el próximo barrido
+            log.warn("Purge of batch {} interrupted: {}", batchId, e.getMessage());
+        } finally {
+            inProgress.remove(batchId);
+        }
+    }
+}
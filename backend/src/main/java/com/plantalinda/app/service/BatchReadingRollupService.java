@@ -0,0 +1,226 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.ReadingSeriesDtos.MetricStats;
+import com.plantalinda.app.dto.ReadingSeriesDtos.Point;
+import com.plantalinda.app.dto.ReadingSeriesDtos.Series;
+import com.plantalinda.app.model.BatchLog;
+import com.plantalinda.app.model.BatchReadingRollup;
+import com.plantalinda.app.model.RollupGranularity;
+import com.plantalinda.app.repository.BatchReadingRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene batch_reading_rollup (agregados por hora y por día de las lecturas
+ * de cada lote) y sirve las series para los gráficos.
+ *
+ * Cada escritura de bitácora suma sus lecturas a los buckets con un upsert en
+ * la misma transacción que el INSERT del log. Las lecturas de una petición se
+ * agregan antes en memoria, así una ingesta masiva hace un upsert por bucket y
+ * no uno por lectura.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchReadingRollupService {
+
+    private static final List<String> METRICS = List.of("ph", "ec", "temperature", "humidity");
+
+    private static final String UPSERT = buildUpsert();
+
+    private final BatchReadingRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Lectura de un log, la unidad que se suma a los rollups. */
+    public record Sample(Long batchId, LocalDateTime timestamp, Double ph, Double ec, Double temperature,
+            Double humidity) {
+
+        public static Sample of(BatchLog log) {
+            return new Sample(log.getBatch().getId(), log.getTimestamp(), log.getPh(), log.getEc(),
+                    log.getTemperature(), log.getHumidity());
+        }
+
+        private Double metric(int index) {
+            return switch (index) {
+                case 0 -> ph;
+                case 1 -> ec;
+                case 2 -> temperature;
+                default -> humidity;
+            };
+        }
+    }
+
+    /**
+     * Suma las lecturas a los buckets HOUR y DAY. Debe llamarse dentro de la
+     * transacción que inserta los logs.
+     */
+    @Transactional
+    public void record(Collection<Sample> samples) {
+        // Orden estable de las claves: dos ingestas concurrentes bloquean las filas en el mismo orden
+        Map<BucketKey, Accumulator> buckets = new TreeMap<>();
+        for (Sample sample : samples) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                BucketKey key = new BucketKey(sample.batchId(), granularity,
+                        granularity.bucketStart(sample.timestamp()));
+                buckets.computeIfAbsent(key, k -> new Accumulator()).add(sample);
+            }
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT, buckets.entrySet(), buckets.size(), (ps, entry) -> {
+            BucketKey key = entry.getKey();
+            Accumulator acc = entry.getValue();
+            ps.setLong(1, key.batchId());
+            ps.setString(2, key.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart()));
+            int column = 4;
+            for (int m = 0; m < METRICS.size(); m++) {
+                ps.setObject(column++, acc.min[m], Types.DOUBLE);
+                ps.setObject(column++, acc.max[m], Types.DOUBLE);
+                ps.setDouble(column++, acc.sum[m]);
+                ps.setLong(column++, acc.count[m]);
+            }
+        });
+    }
+
+    /**
+     * Recalcula los rollups de un lote desde batch_log. Bloquea la fila del
+     * lote: los INSERT en batch_log toman FOR KEY SHARE sobre ella por la FK,
+     * así que no puede entrar un log concurrente entre el borrado y el recálculo.
+     */
+    @Transactional
+    public void rebuild(Long batchId) {
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM batch WHERE id = ? FOR UPDATE", Long.class,
+                batchId);
+        if (locked.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM batch_reading_rollup WHERE batch_id = ?", batchId);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update(buildRebuild(granularity), batchId);
+        }
+    }
+
+    // Por JDBC: un DELETE en HQL arrastraría el filtro de tenant, cuyo {alias} no se resuelve en borrados masivos
+    @Transactional
+    public void deleteForBatch(Long batchId) {
+        jdbcTemplate.update("DELETE FROM batch_reading_rollup WHERE batch_id = ?", batchId);
+    }
+
+    /**
+     * Serie de un lote en [from, to) con la resolución más gruesa necesaria:
+     * por hora si el rango entra en maxPoints buckets, si no por día.
+     */
+    @Transactional(readOnly = true)
+    public Series getSeries(Long batchId, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        RollupGranularity resolution = RollupGranularity.HOUR.bucketsBetween(from, to) <= maxPoints
+                ? RollupGranularity.HOUR
+                : RollupGranularity.DAY;
+
+        List<Point> points = rollupRepository
+                .findRange(batchId, resolution, resolution.bucketStart(from), to)
+                .stream()
+                .map(this::mapToPoint)
+                .collect(Collectors.toList());
+
+        return Series.builder()
+                .batchId(batchId)
+                .resolution(resolution)
+                .from(from)
+                .to(to)
+                .points(points)
+                .build();
+    }
+
+    private Point mapToPoint(BatchReadingRollup r) {
+        return Point.builder()
+                .bucketStart(r.getId().getBucketStart())
+                .ph(MetricStats.of(r.getPhMin(), r.getPhMax(), r.getPhSum(), r.getPhCount()))
+                .ec(MetricStats.of(r.getEcMin(), r.getEcMax(), r.getEcSum(), r.getEcCount()))
+                .temperature(MetricStats.of(r.getTemperatureMin(), r.getTemperatureMax(),
+                        r.getTemperatureSum(), r.getTemperatureCount()))
+                .humidity(MetricStats.of(r.getHumidityMin(), r.getHumidityMax(),
+                        r.getHumiditySum(), r.getHumidityCount()))
+                .build();
+    }
+
+    private static String buildUpsert() {
+        String columns = METRICS.stream()
+                .flatMap(m -> Stream.of(m + "_min", m + "_max", m + "_sum", m + "_count"))
+                .collect(Collectors.joining(", "));
+        String placeholders = Stream.generate(() -> "?").limit(3 + METRICS.size() * 4L)
+                .collect(Collectors.joining(", "));
+        // LEAST/GREATEST ignoran NULL: un bucket sin lecturas de la métrica conserva min/max
+        String updates = METRICS.stream()
+                .map(m -> m + "_min = LEAST(r." + m + "_min, EXCLUDED." + m + "_min), "
+                        + m + "_max = GREATEST(r." + m + "_max, EXCLUDED." + m + "_max), "
+                        + m + "_sum = r." + m + "_sum + EXCLUDED." + m + "_sum, "
+                        + m + "_count = r." + m + "_count + EXCLUDED." + m + "_count")
+                .collect(Collectors.joining(", "));
+        return "INSERT INTO batch_reading_rollup AS r (batch_id, granularity, bucket_start, " + columns + ") "
+                + "VALUES (" + placeholders + ") "
+                + "ON CONFLICT (batch_id, granularity, bucket_start) DO UPDATE SET " + updates;
+    }
+
+    private static String buildRebuild(RollupGranularity granularity) {
+        String columns = METRICS.stream()
+                .flatMap(m -> Stream.of(m + "_min", m + "_max", m + "_sum", m + "_count"))
+                .collect(Collectors.joining(", "));
+        String aggregates = METRICS.stream()
+                .map(m -> "MIN(" + m + "), MAX(" + m + "), COALESCE(SUM(" + m + "), 0), COUNT(" + m + ")")
+                .collect(Collectors.joining(", "));
+        String trunc = "date_trunc('" + granularity.name().toLowerCase() + "', \"timestamp\")";
+        return "INSERT INTO batch_reading_rollup (batch_id, granularity, bucket_start, " + columns + ") "
+                + "SELECT batch_id, '" + granularity.name() + "', " + trunc + ", " + aggregates + " "
+                + "FROM batch_log WHERE batch_id = ? GROUP BY batch_id, " + trunc;
+    }
+
+    private record BucketKey(Long batchId, RollupGranularity granularity, LocalDateTime bucketStart)
+            implements Comparable<BucketKey> {
+
+        private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::batchId)
+                .thenComparing(BucketKey::granularity)
+                .thenComparing(BucketKey::bucketStart);
+
+        @Override
+        public int compareTo(BucketKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class Accumulator {
+        private final Double[] min = new Double[METRICS.size()];
+        private final Double[] max = new Double[METRICS.size()];
+        private final double[] sum = new double[METRICS.size()];
+        private final long[] count = new long[METRICS.size()];
+
+        void add(Sample sample) {
+            for (int m = 0; m < METRICS.size(); m++) {
+                Double value = sample.metric(m);
+                if (value == null) {
+                    continue;
+                }
+                min[m] = min[m] == null ? value : Math.min(min[m], value);
+                max[m] = max[m] == null ? value : Math.max(max[m], value);
+                sum[m] += value;
+                count[m]++;
+            }
+        }
+    }
+}
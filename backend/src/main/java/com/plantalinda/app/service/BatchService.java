@@ -1,32 +1,56 @@
 package com.plantalinda.app.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.plantalinda.app.dto.*;
+import com.plantalinda.app.dto.ReadingSeriesDtos.Series;
 import com.plantalinda.app.model.Batch;
 import com.plantalinda.app.model.BatchLog;
 import com.plantalinda.app.model.BatchStage;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.BatchLogRepository;
 import com.plantalinda.app.repository.BatchRepository;
+import com.plantalinda.app.repository.InventoryItemRepository;
+import com.plantalinda.app.repository.InventoryMovementRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BatchService {
 
+    private static final List<ExportWriter.Column<BatchLogResponse>> LOG_EXPORT_COLUMNS = List.of(
+            new ExportWriter.Column<>("id", BatchLogResponse::getId),
+            new ExportWriter.Column<>("batch_id", BatchLogResponse::getBatchId),
+            new ExportWriter.Column<>("timestamp", BatchLogResponse::getTimestamp),
+            new ExportWriter.Column<>("stage", BatchLogResponse::getStageAtTime),
+            new ExportWriter.Column<>("ph", BatchLogResponse::getPh),
+            new ExportWriter.Column<>("ec", BatchLogResponse::getEc),
+            new ExportWriter.Column<>("temperature", BatchLogResponse::getTemperature),
+            new ExportWriter.Column<>("humidity", BatchLogResponse::getHumidity),
+            new ExportWriter.Column<>("notes", BatchLogResponse::getNotes),
+            new ExportWriter.Column<>("photo_url", BatchLogResponse::getPhotoUrl));
+
     private final BatchRepository batchRepository;
     private final BatchLogRepository batchLogRepository;
     private final FileStorageService fileStorageService;
+    private final BatchReadingRollupService rollupService;
+    private final BatchPurgeService purgeService;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ObjectMapper objectMapper;
 
     @Transactional
     public BatchResponse createBatch(CreateBatchRequest request, User user) {
@@ -43,7 +67,7 @@ public class BatchService {
 
         batch = batchRepository.save(batch);
         log.info("Created new batch: {} for user: {} in org: {}",
-                batch.getName(), user.getEmail(), user.getOrganization().getName());
+                batch.getName(), user.getEmail(), user.getOrganization().getId());
 
         return mapToDto(batch);
     }
@@ -57,31 +81,29 @@ public class BatchService {
     public List<BatchResponse> getUserBatches(User user) {
         if (user.getOrganization() == null)
             return List.of();
-        return batchRepository.findByOrganizationIdOrderByCreatedAtDesc(user.getOrganization().getId())
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return batchRepository.findResponsesByOrganizationId(user.getOrganization().getId());
     }
 
-    public BatchResponse getBatchById(Long batchId, User user) {
-        Batch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new RuntimeException("Batch not found"));
+    public CursorPage<BatchResponse> getUserBatches(User user, KeysetPageRequest page) {
+        if (user.getOrganization() == null)
+            return new CursorPage<>(List.of(), null);
+        Long organizationId = user.getOrganization().getId();
+        List<BatchResponse> rows = page.isFirstPage()
+                ? batchRepository.findPageByOrganizationId(organizationId, page.probe())
+                : batchRepository.findPageByOrganizationIdAfter(organizationId,
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, b -> new KeysetCursor(b.getCreatedAt(), b.getId()), Function.identity());
+    }
 
-        if (!batch.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to batch");
-        }
+    public BatchResponse getBatchById(Long batchId, User user) {
+        Batch batch = findOwnedBatch(batchId, user);
 
         return mapToDto(batch);
     }
 
     @Transactional
     public BatchResponse updateBatchStage(Long batchId, BatchStage newStage, User user) {
-        Batch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new RuntimeException("Batch not found"));
-
-        if (!batch.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to batch");
-        }
+        Batch batch = findOwnedBatch(batchId, user);
 
         batch.setCurrentStage(newStage);
 
@@ -98,12 +120,10 @@ public class BatchService {
 
     @Transactional
     public BatchLogResponse createLog(CreateBatchLogRequest request, User user, MultipartFile photo) {
-        Batch batch = batchRepository.findById(request.getBatchId())
+        BatchStage stage = batchRepository.findCurrentStageByIdAndUserId(request.getBatchId(), user.getId())
                 .orElseThrow(() -> new RuntimeException("Batch not found"));
-
-        if (!batch.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to batch");
-        }
+        // Referencia sin cargar el lote: solo se necesita su id para la FK
+        Batch batch = batchRepository.getReferenceById(request.getBatchId());
 
         String photoUrl = null;
         if (photo != null && !photo.isEmpty()) {
@@ -118,44 +138,108 @@ public class BatchService {
                 .humidity(request.getHumidity())
                 .notes(request.getNotes())
                 .photoUrl(photoUrl)
-                .stageAtTime(batch.getCurrentStage())
+                .stageAtTime(stage)
                 .build();
 
         log = batchLogRepository.save(log);
-        this.log.info("Created log entry for batch: {}", batch.getName());
+        rollupService.record(List.of(BatchReadingRollupService.Sample.of(log)));
+        this.log.info("Created log entry for batch: {}", request.getBatchId());
 
         return mapLogToDto(log);
     }
 
     public List<BatchLogResponse> getBatchLogs(Long batchId, User user) {
-        Batch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new RuntimeException("Batch not found"));
+        requireBatchAccess(batchId, user);
 
-        if (!batch.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to batch");
-        }
+        return batchLogRepository.findResponsesByBatchId(batchId);
+    }
 
-        return batchLogRepository.findByBatchIdOrderByTimestampDesc(batchId)
-                .stream()
-                .map(this::mapLogToDto)
-                .collect(Collectors.toList());
+    public CursorPage<BatchLogResponse> getBatchLogs(Long batchId, User user, KeysetPageRequest page) {
+        requireBatchAccess(batchId, user);
+
+        List<BatchLogResponse> rows = page.isFirstPage()
+                ? batchLogRepository.findPageByBatchId(batchId, page.probe())
+                : batchLogRepository.findPageByBatchIdAfter(batchId,
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, l -> new KeysetCursor(l.getTimestamp(), l.getId()), Function.identity());
     }
 
-    @Transactional
-    public void deleteBatch(Long batchId, User user) {
-        Batch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new RuntimeException("Batch not found"));
+    /**
+     * Escribe todos los logs del lote en orden cronológico. Las filas se leen
+     * con un cursor ya proyectadas a DTO: no entran al contexto de
+     * persistencia, así que la memoria no crece con el historial. La
+     * propiedad del lote se valida antes, en la petición.
+     */
+    @Transactional(readOnly = true)
+    public void exportLogs(Long batchId, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        try (Stream<BatchLogResponse> logs = batchLogRepository.streamByBatchId(batchId);
+                ExportWriter<BatchLogResponse> writer = ExportWriter.open(out, format, gzip, LOG_EXPORT_COLUMNS,
+                        objectMapper)) {
+            for (BatchLogResponse row : (Iterable<BatchLogResponse>) logs::iterator) {
+                writer.write(row);
+            }
+            this.log.info("Exported {} logs of batch {}", writer.getRows(), batchId);
+        }
+    }
 
-        if (!batch.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to batch");
+    // Series para gráficos desde los rollups, en vez de agregar todos los logs en el cliente
+    public Series getReadings(Long batchId, User user, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        requireBatchAccess(batchId, user);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
         }
 
-        // Delete all logs first
-        batchLogRepository.deleteAll(batchLogRepository.findByBatchIdOrderByTimestampDesc(batchId));
+        return rollupService.getSeries(batchId, from, to, maxPoints);
+    }
 
-        // Delete batch
+    /**
+     * Borra un lote con sentencias por conjunto: los logs en un solo DELETE y
+     * las referencias desde inventario (movimientos e items) se ponen en NULL
+     * para conservar el historial de stock. Las fotos se borran tras el commit.
+     *
+     * Los lotes con más logs que app.batches.purge.async-threshold (o con
+     * async=true) se marcan como DELETING y se purgan en segundo plano.
+     *
+     * @return true si el lote quedó borrado, false si quedó en purga asíncrona
+     */
+    @Transactional
+    public boolean deleteBatch(Long batchId, User user, Boolean async) {
+        // Un lote ya en purga no se encuentra (findByIdAndUserId excluye DELETING)
+        Batch batch = findOwnedBatch(batchId, user);
+
+        inventoryMovementRepository.clearBatchReferences(batchId);
+        inventoryItemRepository.clearBatchReferences(batchId);
+        rollupService.deleteForBatch(batchId);
+
+        boolean purgeLater = async != null
+                ? async
+                : purgeService.shouldPurgeAsync(batchLogRepository.countByBatchId(batchId));
+        if (purgeLater) {
+            batch.setStatus(Batch.STATUS_DELETING);
+            batchRepository.save(batch);
+            purgeService.purgeAfterCommit(batchId);
+            log.info("Batch {} queued for purge", batch.getName());
+            return false;
+        }
+
+        List<String> photos = batchLogRepository.findPhotoUrlsByBatchId(batchId);
+        int deletedLogs = batchLogRepository.bulkDeleteByBatchId(batchId);
         batchRepository.delete(batch);
-        log.info("Deleted batch: {}", batch.getName());
+        fileStorageService.deleteAfterCommit(photos);
+        log.info("Deleted batch: {} ({} logs)", batch.getName(), deletedLogs);
+        return true;
+    }
+
+    /** Valida en una sola consulta que el lote exista y sea del usuario, sin cargarlo. */
+    public void requireBatchAccess(Long batchId, User user) {
+        if (!batchRepository.existsByIdAndUserId(batchId, user.getId())) {
+            throw new RuntimeException("Batch not found");
+        }
+    }
+
+    private Batch findOwnedBatch(Long batchId, User user) {
+        return batchRepository.findByIdAndUserId(batchId, user.getId())
+                .orElseThrow(() -> new RuntimeException("Batch not found"));
     }
 
     private BatchResponse mapToDto(Batch batch) {
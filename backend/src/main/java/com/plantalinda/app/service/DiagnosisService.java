@@ -1,7 +1,10 @@
 package com.plantalinda.app.service;
 
+import com.plantalinda.app.dto.CursorPage;
 import com.plantalinda.app.dto.DiagnosisResponse;
 import com.plantalinda.app.dto.EnhancedDiagnosisRequest;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
 import com.plantalinda.app.model.Diagnosis;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.DiagnosisRepository;
@@ -108,7 +111,8 @@ public class DiagnosisService {
                 .predictedIssue(predictedIssue)
                 .confidence(confidence)
                 .correctiveAction(correctiveAction)
-                .user(user);
+                .user(user)
+                .organization(user.getOrganization());
 
         if (context != null) {
             builder.growthStage(context.getGrowthStage())
@@ -132,6 +136,14 @@ public class DiagnosisService {
                 .collect(Collectors.toList());
     }
 
+    public CursorPage<DiagnosisResponse> getUserHistory(User user, KeysetPageRequest page) {
+        List<Diagnosis> rows = page.isFirstPage()
+                ? repository.findPageByUserId(user.getId(), page.probe())
+                : repository.findPageByUserIdAfter(user.getId(),
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, d -> new KeysetCursor(d.getCreatedAt(), d.getId()), this::mapToDto);
+    }
+
     private DiagnosisResponse mapToDto(Diagnosis diagnosis) {
         // Construir URL completa para la imagen
         String imageUrl = diagnosis.getImageUrl();
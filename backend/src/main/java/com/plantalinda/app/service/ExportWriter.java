@@ -0,0 +1,139 @@
+package com.plantalinda.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.plantalinda.app.dto.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escribe filas de una exportación en CSV o NDJSON a medida que llegan, sin
+ * acumularlas: junto con una consulta en Stream el uso de heap no depende del
+ * tamaño del historial.
+ *
+ * Cerrar el writer termina el gzip (si lo hay) pero no cierra la salida de la
+ * respuesta, que pertenece al contenedor.
+ */
+public final class ExportWriter<T> implements Closeable {
+
+    /** Columna del CSV: encabezado y cómo obtener el valor de la fila. */
+    public record Column<T>(String header, Function<T, Object> value) {
+    }
+
+    private final ExportFormat format;
+    private final List<Column<T>> columns;
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+    private final SequenceWriter jsonWriter;
+    private long rows;
+
+    private ExportWriter(OutputStream out, ExportFormat format, boolean compress, List<Column<T>> columns,
+            ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.gzip = compress ? new GZIPOutputStream(new NonClosingOutputStream(out), 8192) : null;
+        OutputStream target = gzip != null ? gzip : new NonClosingOutputStream(out);
+        this.writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+        this.jsonWriter = format == ExportFormat.NDJSON
+                ? objectMapper.writer()
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .withRootValueSeparator("\n")
+                        .writeValues(writer)
+                : null;
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(columns.stream().map(Column::header).collect(Collectors.toList()));
+        }
+    }
+
+    public static <T> ExportWriter<T> open(OutputStream out, ExportFormat format, boolean gzip,
+            List<Column<T>> columns, ObjectMapper objectMapper) throws IOException {
+        return new ExportWriter<>(out, format, gzip, columns, objectMapper);
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void write(T row) throws IOException {
+        rows++;
+        if (format == ExportFormat.NDJSON) {
+            jsonWriter.write(row);
+            return;
+        }
+        writeCsvLine(columns.stream().map(c -> c.value().apply(row)).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jsonWriter != null) {
+            jsonWriter.close();
+            if (rows > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        writer.close();
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        // Evita que una hoja de cálculo interprete notas de usuario como fórmulas
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.plantalinda.app.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -8,9 +11,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Service
 public class FileStorageService {
 
@@ -59,4 +64,41 @@ public class FileStorageService {
             throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
         }
     }
+
+    /**
+     * Borra archivos subidos. Dentro de una transacción espera al commit, para
+     * no perder fotos de registros cuyo borrado termina en rollback.
+     */
+    public void deleteAfterCommit(Collection<String> filenames) {
+        if (filenames.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete(filenames);
+            return;
+        }
+        List<String> pending = List.copyOf(filenames);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete(pending);
+            }
+        });
+    }
+
+    public void delete(Collection<String> filenames) {
+        for (String filename : filenames) {
+            Path file = rootLocation.resolve(filename).normalize();
+            if (!file.startsWith(rootLocation)) {
+                log.warn("Refusing to delete file outside storage: {}", filename);
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Un archivo huérfano no debe hacer fallar el borrado de los datos
+                log.warn("Could not delete file {}: {}", filename, e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.CreateInventoryMovementRequest;
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.BatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Movimientos de inventario de varias líneas en una sola transacción.
+ *
+ * Los items se bloquean todos al principio, en orden de id (ver
+ * InventoryStockService.lockItems), y el stock de cada línea se valida antes
+ * de escribir nada: o se registran todas las líneas o ninguna. Las cantidades
+ * finales se escriben con un UPDATE por item y los movimientos se insertan
+ * con un único batchUpdate de JDBC (los ids IDENTITY impiden que Hibernate
+ * agrupe los INSERT). Los items que terminan bajo su mínimo partiendo de
+ * por encima generan una alerta de stock bajo. El costo promedio de cada
+ * item se encadena línea a línea con la misma regla que el ajuste individual.
+ */
+@Slf4j
+@Service
+public class InventoryBulkMovementService {
+
+    private static final String INSERT_MOVEMENT = "INSERT INTO inventory_movement "
+            + "(inventory_item_id, type, quantity, previous_quantity, new_quantity, notes, batch_id, cost, unit_cost, "
+            + "\"timestamp\", user_id, organization_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final InventoryStockService stockService;
+    private final NotificationService notificationService;
+    private final BatchRepository batchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxMovements;
+
+    public InventoryBulkMovementService(
+            InventoryStockService stockService,
+            NotificationService notificationService,
+            BatchRepository batchRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.inventory.bulk-movements.max-lines:200}") int maxMovements) {
+        this.stockService = stockService;
+        this.notificationService = notificationService;
+        this.batchRepository = batchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxMovements = maxMovements;
+    }
+
+    @Transactional
+    public List<InventoryMovementResponse> record(List<CreateInventoryMovementRequest> movements, User user) {
+        if (movements == null || movements.isEmpty()) {
+            throw new IllegalArgumentException("No movements to record");
+        }
+        if (movements.size() > maxMovements) {
+            throw new IllegalArgumentException("Too many movements in one request (max " + maxMovements + ")");
+        }
+        if (user.getOrganization() == null) {
+            throw new RuntimeException("Item not found");
+        }
+        for (CreateInventoryMovementRequest movement : movements) {
+            validate(movement);
+        }
+        Long organizationId = user.getOrganization().getId();
+
+        Map<Long, String> batchNames = loadBatchNames(movements, organizationId);
+        Map<Long, InventoryStockService.LockedItem> items = stockService.lockItems(
+                movements.stream().map(CreateInventoryMovementRequest::getInventoryItemId).toList(), organizationId);
+
+        // Las líneas se aplican en el orden de la petición; un item repetido parte de la cantidad de su línea anterior
+        Map<Long, InventoryStockService.StockLevel> levels = new HashMap<>();
+        List<PendingMovement> pending = new ArrayList<>(movements.size());
+        for (CreateInventoryMovementRequest movement : movements) {
+            InventoryStockService.LockedItem item = items.get(movement.getInventoryItemId());
+            if (item == null) {
+                throw new RuntimeException("Item not found");
+            }
+            double quantity = movement.getType().isOutgoing()
+                    ? -Math.abs(movement.getQuantity())
+                    : Math.abs(movement.getQuantity());
+            InventoryStockService.StockLevel previous = levels.getOrDefault(item.id(),
+                    new InventoryStockService.StockLevel(item.currentQuantity(), item.averageCost()));
+            double newQuantity = previous.quantity() + quantity;
+            if (newQuantity < 0) {
+                throw new RuntimeException("Insufficient stock of " + item.name() + ". Current: "
+                        + previous.quantity() + ", Requested: " + Math.abs(quantity));
+            }
+            Double incomingUnitCost = InventoryStockService.incomingUnitCost(quantity, movement.getCost());
+            Double averageCost = InventoryStockService.nextAverageCost(previous.quantity(), previous.averageCost(),
+                    quantity, incomingUnitCost);
+            levels.put(item.id(), new InventoryStockService.StockLevel(newQuantity, averageCost));
+            pending.add(new PendingMovement(movement, item, quantity, previous.quantity(), newQuantity,
+                    incomingUnitCost != null ? incomingUnitCost : averageCost));
+        }
+
+        stockService.setLevels(levels);
+        LocalDateTime timestamp = LocalDateTime.now();
+        List<Long> ids = insert(pending, timestamp, user, organizationId);
+        log.info("Recorded {} movements on {} items for user: {}", pending.size(), levels.size(),
+                user.getEmail());
+
+        // Un cruce por item y petición: cantidad bloqueada al empezar contra la final
+        levels.forEach((itemId, level) -> {
+            InventoryStockService.LockedItem item = items.get(itemId);
+            if (InventoryStockService.crossesBelow(item.minimumQuantity(), item.currentQuantity(), level.quantity())) {
+                notificationService.notifyLowStock(user.getOrganization(), item.name(), level.quantity(),
+                        item.minimumQuantity(), item.unit());
+            }
+        });
+
+        List<InventoryMovementResponse> responses = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            PendingMovement row = pending.get(i);
+            Long batchId = row.request().getBatchId();
+            responses.add(InventoryMovementResponse.builder()
+                    .id(ids.get(i))
+                    .inventoryItemId(row.item().id())
+                    .inventoryItemName(row.item().name())
+                    .type(row.request().getType())
+                    .quantity(row.quantity())
+                    .previousQuantity(row.previousQuantity())
+                    .newQuantity(row.newQuantity())
+                    .notes(row.request().getNotes())
+                    .batchId(batchId)
+                    .batchName(batchId != null ? batchNames.get(batchId) : null)
+                    .cost(row.request().getCost())
+                    .timestamp(timestamp)
+                    .build());
+        }
+        return responses;
+    }
+
+    private void validate(CreateInventoryMovementRequest movement) {
+        if (movement == null || movement.getInventoryItemId() == null) {
+            throw new IllegalArgumentException("inventoryItemId is required");
+        }
+        if (movement.getType() == null) {
+            throw new IllegalArgumentException("type is required");
+        }
+        if (movement.getQuantity() == null || !Double.isFinite(movement.getQuantity())) {
+            throw new IllegalArgumentException("Quantity is required");
+        }
+    }
+
+    private Map<Long, String> loadBatchNames(List<CreateInventoryMovementRequest> movements, Long organizationId) {
+        Set<Long> batchIds = movements.stream()
+                .map(CreateInventoryMovementRequest::getBatchId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (batchIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, String> names = batchRepository.findNamesByIdInAndOrganizationId(batchIds, organizationId)
+                .stream()
+                .collect(Collectors.toMap(BatchRepository.NameView::getId, BatchRepository.NameView::getName));
+        if (names.size() != batchIds.size()) {
+            throw new RuntimeException("Batch not found");
+        }
+        return names;
+    }
+
+    private List<Long> insert(List<PendingMovement> rows, LocalDateTime timestamp, User user, Long organizationId) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_MOVEMENT, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingMovement row = rows.get(i);
+                        ps.setLong(1, row.item().id());
+                        ps.setString(2, row.request().getType().name());
+                        ps.setDouble(3, row.quantity());
+                        ps.setDouble(4, row.previousQuantity());
+                        ps.setDouble(5, row.newQuantity());
+                        ps.setString(6, row.request().getNotes());
+                        ps.setObject(7, row.request().getBatchId(), Types.BIGINT);
+                        ps.setObject(8, row.request().getCost(), Types.DOUBLE);
+                        ps.setObject(9, row.unitCost(), Types.DOUBLE);
+                        ps.setTimestamp(10, Timestamp.valueOf(timestamp));
+                        ps.setLong(11, user.getId());
+                        ps.setLong(12, organizationId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+        return keys.getKeyList().stream()
+                .map(key -> ((Number) key.get("id")).longValue())
+                .toList();
+    }
+
+    private record PendingMovement(CreateInventoryMovementRequest request, InventoryStockService.LockedItem item,
+            double quantity, double previousQuantity, double newQuantity, Double unitCost) {
+    }
+}
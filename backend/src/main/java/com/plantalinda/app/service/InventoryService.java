@@ -1,5 +1,6 @@
 package com.plantalinda.app.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.plantalinda.app.dto.*;
 import com.plantalinda.app.model.*;
 import com.plantalinda.app.repository.BatchRepository;
@@ -10,28 +11,46 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
+    private static final List<ExportWriter.Column<InventoryMovementResponse>> MOVEMENT_EXPORT_COLUMNS = List.of(
+            new ExportWriter.Column<>("id", InventoryMovementResponse::getId),
+            new ExportWriter.Column<>("timestamp", InventoryMovementResponse::getTimestamp),
+            new ExportWriter.Column<>("item_id", InventoryMovementResponse::getInventoryItemId),
+            new ExportWriter.Column<>("item_name", InventoryMovementResponse::getInventoryItemName),
+            new ExportWriter.Column<>("type", InventoryMovementResponse::getType),
+            new ExportWriter.Column<>("quantity", InventoryMovementResponse::getQuantity),
+            new ExportWriter.Column<>("previous_quantity", InventoryMovementResponse::getPreviousQuantity),
+            new ExportWriter.Column<>("new_quantity", InventoryMovementResponse::getNewQuantity),
+            new ExportWriter.Column<>("cost", InventoryMovementResponse::getCost),
+            new ExportWriter.Column<>("batch_id", InventoryMovementResponse::getBatchId),
+            new ExportWriter.Column<>("batch_name", InventoryMovementResponse::getBatchName),
+            new ExportWriter.Column<>("notes", InventoryMovementResponse::getNotes));
+
     private final InventoryItemRepository inventoryItemRepository;
     private final InventoryMovementRepository inventoryMovementRepository;
     private final BatchRepository batchRepository;
+    private final InventoryStockService inventoryStockService;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
 
     @Transactional
     public InventoryItemResponse createItem(CreateInventoryItemRequest request, User user) {
         Batch batch = null;
         if (request.getBatchId() != null) {
-            batch = batchRepository.findById(request.getBatchId())
-                    .orElseThrow(() -> new RuntimeException("Batch not found"));
-
-            if (!batch.getUser().getId().equals(user.getId())) {
-                throw new RuntimeException("Unauthorized access to batch");
+            if (!batchRepository.existsByIdAndUserId(request.getBatchId(), user.getId())) {
+                throw new RuntimeException("Batch not found");
             }
+            batch = batchRepository.getReferenceById(request.getBatchId());
         }
 
         InventoryItem item = InventoryItem.builder()
@@ -47,6 +66,7 @@ public class InventoryService {
                 .expirationDate(request.getExpirationDate())
                 .batch(batch)
                 .unitCost(request.getUnitCost())
+                .averageCost(request.getUnitCost())
                 .location(request.getLocation())
                 .user(user)
                 .organization(user.getOrganization()) // Multi-tenancy: Set organization
@@ -71,135 +91,182 @@ public class InventoryService {
         if (user.getOrganization() == null) {
             return List.of();
         }
-        return inventoryItemRepository.findByOrganizationIdOrderByCreatedAtDesc(user.getOrganization().getId())
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return inventoryItemRepository.findResponsesByOrganizationId(user.getOrganization().getId());
+    }
+
+    public CursorPage<InventoryItemResponse> getUserInventory(User user, KeysetPageRequest page) {
+        if (user.getOrganization() == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+        Long organizationId = user.getOrganization().getId();
+        List<InventoryItemResponse> rows = page.isFirstPage()
+                ? inventoryItemRepository.findPageByOrganizationId(organizationId, page.probe())
+                : inventoryItemRepository.findPageByOrganizationIdAfter(organizationId,
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, i -> new KeysetCursor(i.getCreatedAt(), i.getId()),
+                Function.identity());
     }
 
     public List<InventoryItemResponse> getInventoryByType(User user, InventoryItemType type) {
         if (user.getOrganization() == null) {
             return List.of();
         }
-        return inventoryItemRepository.findByOrganizationIdAndType(user.getOrganization().getId(), type)
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return inventoryItemRepository.findResponsesByOrganizationIdAndType(user.getOrganization().getId(), type);
     }
 
     public List<InventoryItemResponse> getLowStockItems(User user) {
         if (user.getOrganization() == null) {
             return List.of();
         }
-        return inventoryItemRepository.findLowStockItemsByOrganization(user.getOrganization().getId())
-                .stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return inventoryItemRepository.findLowStockItemsByOrganization(user.getOrganization().getId());
     }
 
     public InventoryItemResponse getItemById(Long itemId, User user) {
-        InventoryItem item = inventoryItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
-
-        // Multi-tenancy: Check organization access, not just user
-        if (user.getOrganization() == null ||
-                item.getOrganization() == null ||
-                !item.getOrganization().getId().equals(user.getOrganization().getId())) {
-            throw new RuntimeException("Unauthorized access to item");
-        }
-
+        InventoryItem item = findOrganizationItem(itemId, user);
         return mapToDto(item);
     }
 
+    /**
+     * Registra un movimiento y ajusta el stock con un único UPDATE atómico
+     * (ver InventoryStockService): con varios operadores sobre el mismo item
+     * no se pierden actualizaciones y el control de stock negativo no tiene
+     * carreras. El item no se carga como entidad, así ningún save posterior
+     * puede pisar la cantidad con un valor leído antes.
+     */
     @Transactional
     public InventoryMovementResponse recordMovement(CreateInventoryMovementRequest request, User user) {
-        InventoryItem item = inventoryItemRepository.findById(request.getInventoryItemId())
-                .orElseThrow(() -> new RuntimeException("Item not found"));
-
-        // Multi-tenancy: Check organization access
-        if (user.getOrganization() == null ||
-                item.getOrganization() == null ||
-                !item.getOrganization().getId().equals(user.getOrganization().getId())) {
-            throw new RuntimeException("Unauthorized access to item");
+        if (user.getOrganization() == null) {
+            throw new RuntimeException("Item not found");
         }
+        if (request.getQuantity() == null || !Double.isFinite(request.getQuantity())) {
+            throw new IllegalArgumentException("Quantity is required");
+        }
+        Long organizationId = user.getOrganization().getId();
+        Long itemId = request.getInventoryItemId();
 
         Batch batch = null;
         if (request.getBatchId() != null) {
-            batch = batchRepository.findById(request.getBatchId())
+            batch = batchRepository.findByIdAndOrganizationId(request.getBatchId(), organizationId)
                     .orElseThrow(() -> new RuntimeException("Batch not found"));
         }
 
         // Calcular nueva cantidad
         Double quantity = request.getQuantity();
-        if (isOutgoingMovement(request.getType())) {
+        if (request.getType() != null && request.getType().isOutgoing()) {
             quantity = -Math.abs(quantity); // Asegurar que sea negativo
         } else {
             quantity = Math.abs(quantity); // Asegurar que sea positivo
         }
 
-        Double previousQuantity = item.getCurrentQuantity();
-        Double newQuantity = previousQuantity + quantity;
+        Double requested = Math.abs(quantity);
+        Double incomingUnitCost = InventoryStockService.incomingUnitCost(quantity, request.getCost());
+        InventoryStockService.StockChange change = inventoryStockService
+                .applyDelta(itemId, organizationId, quantity, incomingUnitCost)
+                .orElseThrow(() -> inventoryStockService.currentQuantity(itemId, organizationId)
+                        .map(current -> new RuntimeException(
+                                "Insufficient stock. Current: " + current + ", Requested: " + requested))
+                        .orElseGet(() -> new RuntimeException("Item not found")));
+
+        InventoryMovement movement = inventoryMovementRepository.save(InventoryMovement.builder()
+                .inventoryItem(inventoryItemRepository.getReferenceById(itemId))
+                .type(request.getType())
+                .quantity(quantity)
+                .previousQuantity(change.previousQuantity())
+                .newQuantity(change.newQuantity())
+                .notes(request.getNotes())
+                .batch(batch)
+                .cost(request.getCost())
+                // Las salidas se valoran al promedio vigente; las entradas, a su propio costo si lo traen
+                .unitCost(incomingUnitCost != null ? incomingUnitCost : change.averageCost())
+                .user(user)
+                .organization(user.getOrganization())
+                .build());
 
-        if (newQuantity < 0) {
-            throw new RuntimeException(
-                    "Insufficient stock. Current: " + previousQuantity + ", Requested: " + Math.abs(quantity));
+        if (change.crossedBelowMinimum()) {
+            notificationService.notifyLowStock(user.getOrganization(), change.itemName(), change.newQuantity(),
+                    change.minimumQuantity(), change.unit());
         }
 
-        // Actualizar cantidad del item
-        item.setCurrentQuantity(newQuantity);
-        inventoryItemRepository.save(item);
-
-        // Crear movimiento
-        InventoryMovement movement = createMovement(item, request.getType(), quantity,
-                request.getNotes(), batch, request.getCost(), user);
-
-        log.info("Recorded movement: {} {} for item: {}", quantity, item.getUnit(), item.getName());
-        return mapMovementToDto(movement);
+        log.info("Recorded movement: {} {} for item: {}", quantity, change.unit(), change.itemName());
+        return InventoryMovementResponse.builder()
+                .id(movement.getId())
+                .inventoryItemId(itemId)
+                .inventoryItemName(change.itemName())
+                .type(movement.getType())
+                .quantity(movement.getQuantity())
+                .previousQuantity(movement.getPreviousQuantity())
+                .newQuantity(movement.getNewQuantity())
+                .notes(movement.getNotes())
+                .batchId(batch != null ? batch.getId() : null)
+                .batchName(batch != null ? batch.getName() : null)
+                .cost(movement.getCost())
+                .timestamp(movement.getTimestamp())
+                .build();
     }
 
     public List<InventoryMovementResponse> getItemMovements(Long itemId, User user) {
-        InventoryItem item = inventoryItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
-
-        // Multi-tenancy: Check organization access
-        if (user.getOrganization() == null ||
-                item.getOrganization() == null ||
-                !item.getOrganization().getId().equals(user.getOrganization().getId())) {
-            throw new RuntimeException("Unauthorized access to item");
+        if (user.getOrganization() == null
+                || !inventoryItemRepository.existsByIdAndOrganizationId(itemId, user.getOrganization().getId())) {
+            throw new RuntimeException("Item not found");
         }
 
-        return inventoryMovementRepository.findByInventoryItemIdOrderByTimestampDesc(itemId)
-                .stream()
-                .map(this::mapMovementToDto)
-                .collect(Collectors.toList());
+        return inventoryMovementRepository.findResponsesByInventoryItemId(itemId);
     }
 
     public List<InventoryMovementResponse> getAllMovements(User user) {
-        return inventoryMovementRepository.findByUserIdOrderByTimestampDesc(user.getId())
-                .stream()
-                .map(this::mapMovementToDto)
-                .collect(Collectors.toList());
+        return inventoryMovementRepository.findResponsesByUserId(user.getId());
     }
 
-    @Transactional
-    public void deleteItem(Long itemId, User user) {
-        InventoryItem item = inventoryItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
+    /** Movimientos de toda la organización, filtrados y paginados con keyset. */
+    public CursorPage<InventoryMovementResponse> getMovementFeed(User user, MovementFeedFilter filter,
+            KeysetPageRequest page) {
+        if (user.getOrganization() == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+        List<InventoryMovementResponse> rows = inventoryMovementRepository
+                .findFeedPage(user.getOrganization().getId(), filter, page);
+        return CursorPage.of(rows, page, m -> new KeysetCursor(m.getTimestamp(), m.getId()), Function.identity());
+    }
 
-        // Multi-tenancy: Check organization access
-        if (user.getOrganization() == null ||
-                item.getOrganization() == null ||
-                !item.getOrganization().getId().equals(user.getOrganization().getId())) {
-            throw new RuntimeException("Unauthorized access to item");
+    /**
+     * Escribe todos los movimientos del usuario en orden cronológico, leyendo
+     * con un cursor filas ya proyectadas a DTO (con los nombres de item y
+     * lote por join), sin entidades en el contexto de persistencia.
+     */
+    @Transactional(readOnly = true)
+    public void exportMovements(User user, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        try (Stream<InventoryMovementResponse> movements = inventoryMovementRepository.streamByUserId(user.getId());
+                ExportWriter<InventoryMovementResponse> writer = ExportWriter.open(out, format, gzip,
+                        MOVEMENT_EXPORT_COLUMNS, objectMapper)) {
+            for (InventoryMovementResponse row : (Iterable<InventoryMovementResponse>) movements::iterator) {
+                writer.write(row);
+            }
+            log.info("Exported {} inventory movements for user {}", writer.getRows(), user.getEmail());
         }
+    }
+
+    @Transactional
+    public void deleteItem(Long itemId, User user) {
+        InventoryItem item = findOrganizationItem(itemId, user);
 
-        // Eliminar movimientos asociados
-        inventoryMovementRepository.deleteAll(
-                inventoryMovementRepository.findByInventoryItemIdOrderByTimestampDesc(itemId));
+        // Eliminar movimientos asociados en una sola sentencia
+        int deletedMovements = inventoryMovementRepository.bulkDeleteByInventoryItemId(itemId);
 
         // Eliminar item
         inventoryItemRepository.delete(item);
-        log.info("Deleted inventory item: {}", item.getName());
+        log.info("Deleted inventory item: {} ({} movements)", item.getName(), deletedMovements);
+    }
+
+    /**
+     * Multi-tenancy: la organización se valida en la misma consulta. Un item de
+     * otra organización se comporta igual que uno inexistente.
+     */
+    private InventoryItem findOrganizationItem(Long itemId, User user) {
+        if (user.getOrganization() == null) {
+            throw new RuntimeException("Item not found");
+        }
+        return inventoryItemRepository.findByIdAndOrganizationId(itemId, user.getOrganization().getId())
+                .orElseThrow(() -> new RuntimeException("Item not found"));
     }
 
     private InventoryMovement createMovement(InventoryItem item, MovementType type, Double quantity,
@@ -215,18 +282,14 @@ public class InventoryService {
                 .notes(notes)
                 .batch(batch)
                 .cost(cost)
+                .unitCost(item.getAverageCost())
                 .user(user)
+                .organization(item.getOrganization())
                 .build();
 
         return inventoryMovementRepository.save(movement);
     }
 
-    private boolean isOutgoingMovement(MovementType type) {
-        return type == MovementType.USAGE ||
-                type == MovementType.SALE ||
-                type == MovementType.LOSS;
-    }
-
     private InventoryItemResponse mapToDto(InventoryItem item) {
         boolean isLowStock = item.getMinimumQuantity() != null &&
                 item.getCurrentQuantity() < item.getMinimumQuantity();
@@ -252,21 +315,4 @@ public class InventoryService {
                 .isLowStock(isLowStock)
                 .build();
     }
-
-    private InventoryMovementResponse mapMovementToDto(InventoryMovement movement) {
-        return InventoryMovementResponse.builder()
-                .id(movement.getId())
-                .inventoryItemId(movement.getInventoryItem().getId())
-                .inventoryItemName(movement.getInventoryItem().getName())
-                .type(movement.getType())
-                .quantity(movement.getQuantity())
-                .previousQuantity(movement.getPreviousQuantity())
-                .newQuantity(movement.getNewQuantity())
-                .notes(movement.getNotes())
-                .batchId(movement.getBatch() != null ? movement.getBatch().getId() : null)
-                .batchName(movement.getBatch() != null ? movement.getBatch().getName() : null)
-                .cost(movement.getCost())
-                .timestamp(movement.getTimestamp())
-                .build();
-    }
 }
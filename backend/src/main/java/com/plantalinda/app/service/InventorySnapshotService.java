@@ -0,0 +1,149 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.StockBalanceDtos.Balance;
+import com.plantalinda.app.dto.StockBalanceDtos.StockAt;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.security.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stock de inventario a una fecha.
+ *
+ * Cada noche se guarda en inventory_stock_snapshot la cantidad de cada item
+ * al cierre del día anterior. El stock en un instante T es el snapshot más
+ * reciente anterior a T más la suma de los movimientos entre ese snapshot y
+ * T, así que el coste depende de los movimientos de unos pocos días y no del
+ * historial completo. Un item sin snapshots parte de 0 desde su primer
+ * movimiento (la compra inicial que registra createItem).
+ */
+@Slf4j
+@Service
+public class InventorySnapshotService {
+
+    // Parámetros: instante T, fecha máxima del snapshot de partida y los del filtro que se concatena
+    private static final String STOCK_AT = "SELECT i.id, i.name, i.unit, i.organization_id, "
+            + "COALESCE(s.quantity, 0) + COALESCE((SELECT SUM(m.quantity) FROM inventory_movement m "
+            + "WHERE m.inventory_item_id = i.id AND m.\"timestamp\" >= COALESCE(s.valid_from, '-infinity') "
+            + "AND m.\"timestamp\" < ?), 0) AS quantity "
+            + "FROM inventory_item i LEFT JOIN LATERAL (SELECT quantity, (snapshot_date + 1)::timestamp AS valid_from "
+            + "FROM inventory_stock_snapshot WHERE inventory_item_id = i.id AND snapshot_date <= ? "
+            + "ORDER BY snapshot_date DESC LIMIT 1) s ON true ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int catchUpDays;
+
+    public InventorySnapshotService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.inventory.snapshots.catch-up-days:7}") int catchUpDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catchUpDays = catchUpDays;
+    }
+
+    /** Stock de un item de la organización en el instante at. */
+    @Transactional(readOnly = true)
+    public StockAt getStockAt(Long itemId, User user, LocalDateTime at) {
+        if (user.getOrganization() == null) {
+            throw new RuntimeException("Item not found");
+        }
+        List<StockAt> rows = queryStockAt(at, "WHERE i.id = ? AND i.organization_id = ?",
+                itemId, user.getOrganization().getId());
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Item not found");
+        }
+        return rows.get(0);
+    }
+
+    /** Saldos de apertura (from) y cierre (to) de todos los items de la organización. */
+    @Transactional(readOnly = true)
+    public List<Balance> getBalances(User user, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (user.getOrganization() == null) {
+            return List.of();
+        }
+        Long organizationId = user.getOrganization().getId();
+
+        // Items creados hasta el cierre; los creados dentro del período abren en 0
+        String filter = "WHERE i.organization_id = ? AND i.created_at < ?";
+        Timestamp closing = Timestamp.valueOf(to);
+        Map<Long, StockAt> opening = queryStockAt(from, filter, organizationId, closing).stream()
+                .collect(Collectors.toMap(StockAt::getInventoryItemId, Function.identity()));
+
+        return queryStockAt(to, filter + " ORDER BY i.name, i.id", organizationId, closing).stream()
+                .map(close -> {
+                    double open = opening.get(close.getInventoryItemId()).getQuantity();
+                    return Balance.builder()
+                            .inventoryItemId(close.getInventoryItemId())
+                            .inventoryItemName(close.getInventoryItemName())
+                            .unit(close.getUnit())
+                            .openingQuantity(open)
+                            .closingQuantity(close.getQuantity())
+                            .netChange(close.getQuantity() - open)
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Guarda el stock al cierre de cada día pendiente hasta ayer, como mucho
+     * catch-up-days hacia atrás. Es idempotente (upsert por item y día), así
+     * que varias réplicas pueden ejecutarlo a la vez.
+     */
+    @Scheduled(cron = "${app.inventory.snapshots.cron:0 15 0 * * *}")
+    public void takeDailySnapshots() {
+        TenantContext.runCrossTenant(() -> {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            LocalDate last = jdbcTemplate.queryForObject(
+                    "SELECT MAX(snapshot_date) FROM inventory_stock_snapshot", LocalDate.class);
+            LocalDate day = last == null ? yesterday : last.plusDays(1);
+            if (day.isBefore(yesterday.minusDays(catchUpDays))) {
+                day = yesterday.minusDays(catchUpDays);
+            }
+            for (; !day.isAfter(yesterday); day = day.plusDays(1)) {
+                int items = snapshot(day);
+                log.info("Inventory stock snapshot for {}: {} items", day, items);
+            }
+        });
+    }
+
+    /** Stock de todos los items al cierre de day, calculado desde el snapshot anterior. */
+    public int snapshot(LocalDate day) {
+        LocalDateTime endOfDay = day.plusDays(1).atStartOfDay();
+        return jdbcTemplate.update("INSERT INTO inventory_stock_snapshot "
+                + "(inventory_item_id, snapshot_date, quantity, organization_id) "
+                + "SELECT id, ?, quantity, organization_id FROM (" + STOCK_AT + "WHERE i.created_at < ?) stock "
+                + "ON CONFLICT (inventory_item_id, snapshot_date) DO UPDATE SET quantity = EXCLUDED.quantity",
+                Date.valueOf(day), Timestamp.valueOf(endOfDay), Date.valueOf(day.minusDays(1)),
+                Timestamp.valueOf(endOfDay));
+    }
+
+    private List<StockAt> queryStockAt(LocalDateTime at, String filter, Object... filterArgs) {
+        Object[] args = new Object[filterArgs.length + 2];
+        args[0] = Timestamp.valueOf(at);
+        // Solo snapshots cerrados antes de at: el del día D vale desde D + 1 a las 00:00
+        args[1] = Date.valueOf(at.toLocalDate().minusDays(1));
+        System.arraycopy(filterArgs, 0, args, 2, filterArgs.length);
+        return jdbcTemplate.query(STOCK_AT + filter, (rs, rowNum) -> StockAt.builder()
+                .inventoryItemId(rs.getLong("id"))
+                .inventoryItemName(rs.getString("name"))
+                .unit(rs.getString("unit"))
+                .at(at)
+                .quantity(rs.getDouble("quantity"))
+                .build(), args);
+    }
+}
@@ -0,0 +1,162 @@
+package com.plantalinda.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Service;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Ajuste de stock de un item en una sola sentencia.
+ *
+ * La suma y la comprobación de stock suficiente se evalúan en el UPDATE, sobre
+ * la fila ya bloqueada: dos movimientos concurrentes sobre el mismo item se
+ * serializan en el lock de fila de Postgres y el segundo ve la cantidad que
+ * dejó el primero. No se pierden actualizaciones ni el stock queda negativo,
+ * sin versionado ni reintentos.
+ *
+ * Los movimientos de varias líneas bloquean antes todos sus items con
+ * lockItems y escriben las cantidades finales con setLevels.
+ *
+ * Ambos caminos mantienen below_minimum en la misma sentencia y devuelven lo
+ * necesario para saber si el ajuste cruzó el mínimo: como el cruce se decide
+ * con la fila bloqueada, solo una transacción lo observa y la alerta se
+ * emite una vez por cruce.
+ *
+ * El costo promedio ponderado (average_cost) se actualiza con cada entrada
+ * que trae costo, también sobre la fila bloqueada: valorar el stock o una
+ * salida no requiere recorrer el historial de movimientos.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryStockService {
+
+    // En SET las columnas valen lo anterior al UPDATE; en RETURNING, lo nuevo (el anterior se deriva del delta)
+    static final String APPLY_DELTA = "UPDATE inventory_item "
+            + "SET current_quantity = current_quantity + ?, updated_at = LOCALTIMESTAMP, "
+            + "below_minimum = (minimum_quantity IS NOT NULL AND current_quantity + ? < minimum_quantity), "
+            + "average_cost = CASE WHEN CAST(? AS DOUBLE PRECISION) IS NULL THEN average_cost "
+            + "WHEN current_quantity <= 0 OR average_cost IS NULL THEN ? "
+            + "ELSE (current_quantity * average_cost + ? * ?) / (current_quantity + ?) END "
+            + "WHERE id = ? AND organization_id = ? AND current_quantity + ? >= 0 "
+            + "RETURNING name, unit, minimum_quantity, current_quantity - ? AS previous_quantity, "
+            + "current_quantity AS new_quantity, average_cost";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Estado del item tras un ajuste aplicado. */
+    public record StockChange(String itemName, String unit, Double minimumQuantity, Double previousQuantity,
+            Double newQuantity, Double averageCost) {
+
+        public boolean crossedBelowMinimum() {
+            return crossesBelow(minimumQuantity, previousQuantity, newQuantity);
+        }
+    }
+
+    /** Item bloqueado con FOR UPDATE para un ajuste de varias líneas. */
+    public record LockedItem(Long id, String name, String unit, Double currentQuantity, Double minimumQuantity,
+            Double averageCost) {
+    }
+
+    /** Cantidad y costo promedio finales de un item bloqueado. */
+    public record StockLevel(double quantity, Double averageCost) {
+    }
+
+    /** Si pasar de previous a current deja el stock bajo el mínimo cuando antes no lo estaba. */
+    public static boolean crossesBelow(Double minimumQuantity, double previous, double current) {
+        return minimumQuantity != null && previous >= minimumQuantity && current < minimumQuantity;
+    }
+
+    /** Costo unitario de una entrada (cost es el total del movimiento); null si no es entrada o no trae costo. */
+    public static Double incomingUnitCost(double delta, Double cost) {
+        return delta > 0 && cost != null ? cost / delta : null;
+    }
+
+    /**
+     * Costo promedio tras sumar delta al stock. Las salidas y las entradas
+     * sin costo no lo cambian; con el stock agotado la entrada fija el
+     * promedio. Es la misma regla que aplica APPLY_DELTA en la base de datos.
+     */
+    public static Double nextAverageCost(double quantity, Double averageCost, double delta, Double incomingUnitCost) {
+        if (incomingUnitCost == null) {
+            return averageCost;
+        }
+        if (quantity <= 0 || averageCost == null) {
+            return incomingUnitCost;
+        }
+        return (quantity * averageCost + delta * incomingUnitCost) / (quantity + delta);
+    }
+
+    /**
+     * Suma delta (negativo para salidas) al stock del item si pertenece a la
+     * organización y el resultado no queda negativo. Vacío si no se aplicó:
+     * el item no existe en la organización o el stock no alcanza.
+     * incomingUnitCost (ver incomingUnitCost) entra en el costo promedio.
+     */
+    public Optional<StockChange> applyDelta(Long itemId, Long organizationId, double delta, Double incomingUnitCost) {
+        SqlParameterValue unitCost = new SqlParameterValue(Types.DOUBLE, incomingUnitCost);
+        List<StockChange> changed = jdbcTemplate.query(APPLY_DELTA,
+                (rs, rowNum) -> new StockChange(rs.getString("name"), rs.getString("unit"),
+                        rs.getObject("minimum_quantity", Double.class), rs.getDouble("previous_quantity"),
+                        rs.getDouble("new_quantity"), rs.getObject("average_cost", Double.class)),
+                delta, delta, unitCost, unitCost, delta, unitCost, delta, itemId, organizationId, delta, delta);
+        return changed.stream().findFirst();
+    }
+
+    /**
+     * Bloquea los items de la organización en orden de id. Dos transacciones
+     * de varias líneas que comparten items los toman en el mismo orden, así
+     * que una espera a la otra en vez de formar un ciclo de deadlock. Los ids
+     * que no existen en la organización no aparecen en el resultado.
+     */
+    public Map<Long, LockedItem> lockItems(Collection<Long> itemIds, Long organizationId) {
+        List<Long> ordered = itemIds.stream().distinct().sorted().toList();
+        String placeholders = ordered.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>(ordered);
+        args.add(organizationId);
+
+        Map<Long, LockedItem> locked = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, name, unit, current_quantity, minimum_quantity, average_cost "
+                + "FROM inventory_item "
+                + "WHERE id IN (" + placeholders + ") AND organization_id = ? ORDER BY id FOR UPDATE",
+                rs -> {
+                    locked.put(rs.getLong("id"), new LockedItem(rs.getLong("id"), rs.getString("name"),
+                            rs.getString("unit"), rs.getDouble("current_quantity"),
+                            rs.getObject("minimum_quantity", Double.class),
+                            rs.getObject("average_cost", Double.class)));
+                },
+                args.toArray());
+        return locked;
+    }
+
+    /** Escribe las cantidades y costos promedio finales de items ya bloqueados con lockItems. */
+    public void setLevels(Map<Long, StockLevel> levels) {
+        List<Map.Entry<Long, StockLevel>> rows = new ArrayList<>(new TreeMap<>(levels).entrySet());
+        jdbcTemplate.batchUpdate(
+                "UPDATE inventory_item SET current_quantity = ?, updated_at = LOCALTIMESTAMP, "
+                        + "below_minimum = (minimum_quantity IS NOT NULL AND ? < minimum_quantity), "
+                        + "average_cost = ? WHERE id = ?",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setDouble(1, row.getValue().quantity());
+                    ps.setDouble(2, row.getValue().quantity());
+                    ps.setObject(3, row.getValue().averageCost(), Types.DOUBLE);
+                    ps.setLong(4, row.getKey());
+                });
+    }
+
+    /** Stock actual, para explicar un ajuste rechazado. */
+    public Optional<Double> currentQuantity(Long itemId, Long organizationId) {
+        return jdbcTemplate.queryForList(
+                "SELECT current_quantity FROM inventory_item WHERE id = ? AND organization_id = ?",
+                Double.class, itemId, organizationId).stream().findFirst();
+    }
+}
@@ -0,0 +1,73 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.ValuationDtos.BatchCost;
+import com.plantalinda.app.dto.ValuationDtos.ConsumedItem;
+import com.plantalinda.app.dto.ValuationDtos.ItemValuation;
+import com.plantalinda.app.dto.ValuationDtos.Summary;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.BatchRepository;
+import com.plantalinda.app.repository.InventoryItemRepository;
+import com.plantalinda.app.repository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Valoración de inventario a costo promedio ponderado.
+ *
+ * El promedio de cada item (average_cost) se actualiza al registrar cada
+ * entrada con costo y cada movimiento guarda el costo unitario con que se
+ * valoró (unit_cost), así que el valor del stock es una lectura por item y el
+ * costo consumido por un lote es una agregación de sus salidas.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class InventoryValuationService {
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final BatchRepository batchRepository;
+
+    /** Valor del stock actual de la organización. */
+    public Summary getSummary(User user) {
+        if (user.getOrganization() == null) {
+            return Summary.builder().totalValue(0.0).items(List.of()).build();
+        }
+        List<ItemValuation> items = inventoryItemRepository
+                .findValuationsByOrganizationId(user.getOrganization().getId());
+        return Summary.builder()
+                .totalValue(sum(items.stream().map(ItemValuation::getValue).toList()))
+                .items(items)
+                .build();
+    }
+
+    /** Costo de los insumos consumidos por un lote de la organización. */
+    public BatchCost getBatchCost(Long batchId, User user) {
+        if (user.getOrganization() == null) {
+            throw new RuntimeException("Batch not found");
+        }
+        Long organizationId = user.getOrganization().getId();
+        String batchName = batchRepository.findNamesByIdInAndOrganizationId(List.of(batchId), organizationId)
+                .stream()
+                .findFirst()
+                .map(BatchRepository.NameView::getName)
+                .orElseThrow(() -> new RuntimeException("Batch not found"));
+
+        List<ConsumedItem> items = inventoryMovementRepository.findConsumptionByBatchId(batchId, organizationId);
+        return BatchCost.builder()
+                .batchId(batchId)
+                .batchName(batchName)
+                .totalCost(sum(items.stream().map(ConsumedItem::getCost).toList()))
+                .items(items)
+                .build();
+    }
+
+    // Los items o salidas sin costo conocido no suman
+    private double sum(List<Double> values) {
+        return values.stream().filter(Objects::nonNull).mapToDouble(Double::doubleValue).sum();
+    }
+}
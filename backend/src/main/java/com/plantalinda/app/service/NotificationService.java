@@ -1,10 +1,16 @@
 package com.plantalinda.app.service;
 
+import com.plantalinda.app.dto.CursorPage;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
 import com.plantalinda.app.dto.NotificationResponse;
 import com.plantalinda.app.model.Notification;
 import com.plantalinda.app.model.NotificationType;
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.NotificationRepository;
+import com.plantalinda.app.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +26,7 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
 
     public List<NotificationResponse> getUserNotifications(User user) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId())
@@ -28,6 +35,14 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
 
+    public CursorPage<NotificationResponse> getUserNotifications(User user, KeysetPageRequest page) {
+        List<Notification> rows = page.isFirstPage()
+                ? notificationRepository.findPageByUserId(user.getId(), page.probe())
+                : notificationRepository.findPageByUserIdAfter(user.getId(),
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, n -> new KeysetCursor(n.getCreatedAt(), n.getId()), this::mapToDto);
+    }
+
     public List<NotificationResponse> getUnreadNotifications(User user) {
         return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(user.getId())
                 .stream()
@@ -43,6 +58,7 @@ public class NotificationService {
     public void createNotification(User user, String title, String message, NotificationType type, String actionUrl) {
         Notification notification = Notification.builder()
                 .user(user)
+                .organization(user.getOrganization())
                 .title(title)
                 .message(message)
                 .type(type)
@@ -54,6 +70,35 @@ public class NotificationService {
         log.info("Created notification for user: {} - {}", user.getEmail(), title);
     }
 
+    /**
+     * Alerta INVENTORY_LOW para quienes gestionan el inventario de la
+     * organización. Se llama dentro de la transacción del movimiento que
+     * cruzó el mínimo, así que si el movimiento se revierte no queda alerta.
+     */
+    @Transactional
+    public void notifyLowStock(Organization organization, String itemName, double quantity, double minimumQuantity,
+            String unit) {
+        String message = String.format("Quedan %s %s de %s (mínimo %s)", formatQuantity(quantity), unit, itemName,
+                formatQuantity(minimumQuantity));
+        List<Notification> notifications = userRepository.findByOrganization(organization).stream()
+                .filter(User::isEnabled)
+                .filter(member -> member.getRole() != Role.VIEWER)
+                .map(member -> Notification.builder()
+                        .user(member)
+                        .organization(organization)
+                        .title("Stock bajo: " + itemName)
+                        .message(message)
+                        .type(NotificationType.INVENTORY_LOW)
+                        .isRead(false)
+                        .actionUrl("/inventory")
+                        .build())
+                .toList();
+
+        notificationRepository.saveAll(notifications);
+        log.info("Low stock alert for {} in org {} sent to {} users", itemName, organization.getId(),
+                notifications.size());
+    }
+
     @Transactional
     public void markAsRead(Long notificationId, User user) {
         Notification notification = notificationRepository.findById(notificationId)
@@ -106,4 +151,8 @@ public class NotificationService {
                 .readAt(notification.getReadAt())
                 .build();
     }
+
+    private static String formatQuantity(double quantity) {
+        return quantity == Math.rint(quantity) ? String.valueOf((long) quantity) : String.valueOf(quantity);
+    }
 }
@@ -1,10 +1,12 @@
 package com.plantalinda.app.service;
 
+import com.plantalinda.app.config.JwtService;
 import com.plantalinda.app.model.Organization;
 import com.plantalinda.app.model.PlanType;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.OrganizationRepository;
 import com.plantalinda.app.repository.UserRepository;
+import com.plantalinda.app.security.SecurityVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,15 +26,20 @@ public class OrganizationService {
     private final OrganizationRepository organizationRepository;
     private final UserRepository userRepository;
     private final PermissionService permissionService;
+    private final SecurityVersionService securityVersionService;
+    private final JwtService jwtService;
 
     /**
-     * Obtiene la organización del usuario actual
+     * Obtiene la organización del usuario actual.
+     * El principal construido desde el JWT solo trae id y plan de la organización,
+     * por lo que aquí se carga la entidad completa.
      */
     public Organization getUserOrganization(User user) {
         if (user.getOrganization() == null) {
             throw new IllegalStateException("Usuario no pertenece a ninguna organización");
         }
-        return user.getOrganization();
+        return organizationRepository.findById(user.getOrganization().getId())
+                .orElseThrow(() -> new IllegalStateException("Organización no encontrada"));
     }
 
     /**
@@ -98,10 +105,12 @@ public class OrganizationService {
     }
 
     /**
-     * Actualiza el plan de la organización
+     * Actualiza el plan de la organización. El plan viaja en el JWT, así que se
+     * revocan los tokens de todos los miembros; el que hizo el cambio recibe
+     * uno nuevo con el plan y la versión de seguridad vigentes.
      */
     @Transactional
-    public Organization upgradePlan(User user, PlanType newPlan) {
+    public PlanUpgradeResult upgradePlan(User user, PlanType newPlan) {
         permissionService.requireRole(user, com.plantalinda.app.model.Role.OWNER);
 
         Organization org = getUserOrganization(user);
@@ -126,10 +135,17 @@ public class OrganizationService {
         }
 
         Organization updated = organizationRepository.save(org);
+
+        // El plan viaja en el JWT: invalidar los tokens de todos los miembros
+        securityVersionService.revokeOrganization(org.getId());
+        long securityVersion = userRepository.findActiveSecurityVersionById(user.getId())
+                .orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
+        String token = jwtService.generateToken(user, securityVersion, updated);
+
         log.info("Organization plan upgraded: {} -> {} for {}",
                 oldPlan, newPlan, org.getName());
 
-        return updated;
+        return new PlanUpgradeResult(updated, token);
     }
 
     /**
@@ -0,0 +1,10 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.model.Organization;
+
+/**
+ * Resultado de un cambio de plan: la organización actualizada y un token nuevo
+ * para quien hizo el cambio, ya que el suyo quedó revocado con el resto.
+ */
+public record PlanUpgradeResult(Organization organization, String token) {
+}
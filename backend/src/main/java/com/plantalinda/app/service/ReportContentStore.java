@@ -0,0 +1,191 @@
+package com.plantalinda.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cuerpos de reportes en gzip en la tabla report_content (V14).
+ *
+ * Al guardar, el JSON se comprime a un archivo temporal mientras se escribe
+ * (prepare) y después se envía a Postgres como stream (save), dentro de la
+ * transacción que registra el resultado del intento; al leer, se traen bloques
+ * de CHUNK_SIZE bytes con substring(). En ningún momento el cuerpo completo
+ * está en heap.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReportContentStore {
+
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Metadatos del cuerpo guardado, para la fila de reports. */
+    public record StoredContent(long size, long compressedSize, String etag) {
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /** Cuerpo ya comprimido en un archivo temporal, que close() borra. */
+    public record PreparedContent(Path file, StoredContent stored) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Comprime lo que escribe writer a un archivo temporal, sin tocar la base. */
+    public PreparedContent prepare(Long reportId, ContentWriter writer) throws IOException {
+        Path file = Files.createTempFile("report-" + reportId + "-", ".json.gz");
+        try {
+            MessageDigest sha256 = sha256();
+            CountingOutputStream json;
+            try (OutputStream gzip = new GZIPOutputStream(new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)), sha256), 8192)) {
+                json = new CountingOutputStream(gzip);
+                writer.write(json);
+            }
+            return new PreparedContent(file, new StoredContent(json.count, Files.size(file),
+                    HexFormat.of().formatHex(sha256.digest())));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Guarda (o reemplaza) el cuerpo del reporte. Debe correr en la transacción
+     * que tiene bloqueado el intento del reporte (ReportService.complete): así
+     * un intento dado por caído no pisa el cuerpo de otro.
+     */
+    public void save(Long reportId, PreparedContent content) {
+        try (InputStream body = Files.newInputStream(content.file())) {
+            jdbcTemplate.update("INSERT INTO report_content (report_id, body) VALUES (?, ?) "
+                    + "ON CONFLICT (report_id) DO UPDATE SET body = EXCLUDED.body", ps -> {
+                        ps.setLong(1, reportId);
+                        ps.setBinaryStream(2, body, content.stored().compressedSize());
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bytes [offset, offset + length) del gzip, leídos de a un bloque por vez
+     * a medida que se consumen.
+     */
+    public InputStream open(Long reportId, long offset, long length) {
+        return new ChunkedBodyInputStream(reportId, offset, length);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class ChunkedBodyInputStream extends InputStream {
+
+        private final Long reportId;
+        private long position;
+        private final long end;
+        private byte[] chunk = new byte[0];
+        private int index;
+
+        ChunkedBodyInputStream(Long reportId, long offset, long length) {
+            this.reportId = reportId;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[index++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - index);
+            System.arraycopy(chunk, index, b, off, n);
+            index += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            if (index < chunk.length) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            int length = (int) Math.min(CHUNK_SIZE, end - position);
+            // substring de bytea es 1-based y solo acepta int (un bytea no pasa de 1 GB)
+            List<byte[]> rows = jdbcTemplate.queryForList(
+                    "SELECT substring(body FROM ? FOR ?) FROM report_content WHERE report_id = ?",
+                    byte[].class, Math.toIntExact(position + 1), length, reportId);
+            if (rows.isEmpty() || rows.get(0) == null || rows.get(0).length == 0) {
+                throw new IOException("Report content " + reportId + " ended before byte " + end);
+            }
+            chunk = rows.get(0);
+            index = 0;
+            position += chunk.length;
+            return true;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.security.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Cola durable de generación de reportes sobre la tabla reports.
+ *
+ * Cada réplica tiene un pool de workers acotado y toma como mucho tantos
+ * reportes PENDING como workers libres, con FOR UPDATE SKIP LOCKED: dos
+ * réplicas nunca toman el mismo reporte y ninguna espera los locks de la
+ * otra. El contenido se arma en una transacción de solo lectura, comprimido
+ * a report_content (ReportContentStore), y el resultado se registra aparte,
+ * así la petición HTTP que lo pidió no retiene un thread de Tomcat ni una
+ * conexión mientras dura la generación.
+ *
+ * Se sondea la cola al confirmar cada pedido y periódicamente (pedidos de
+ * otras réplicas, reintentos). Un RUNNING más viejo que stale-after se da por
+ * caído con su réplica y vuelve a PENDING, o pasa a FAILED si agotó
+ * max-attempts.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+
+    static final String CLAIM = "UPDATE reports SET status = 'RUNNING', started_at = LOCALTIMESTAMP, "
+            + "attempts = attempts + 1 WHERE id IN (SELECT id FROM reports WHERE status = 'PENDING' "
+            + "ORDER BY created_at, id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING id, attempts";
+
+    static final String RELEASE_STALE = "UPDATE reports SET "
+            + "status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END, "
+            + "content = CASE WHEN attempts >= ? THEN 'Error: la generación no terminó' ELSE content END, "
+            + "completed_at = CASE WHEN attempts >= ? THEN LOCALTIMESTAMP ELSE completed_at END "
+            + "WHERE status = 'RUNNING' AND started_at < ?";
+
+    static final RowMapper<Claim> CLAIM_MAPPER = (rs, rowNum) -> new Claim(rs.getLong("id"), rs.getInt("attempts"));
+
+    private final ReportService reportService;
+    private final ReportContentStore contentStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskExecutor taskExecutor;
+    private final ThreadPoolTaskExecutor workers;
+    private final Semaphore freeWorkers;
+    private final Duration staleAfter;
+    private final int maxAttempts;
+
+    public ReportJobService(
+            ReportService reportService,
+            ReportContentStore contentStore,
+            JdbcTemplate jdbcTemplate,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+            @Value("${app.reports.jobs.workers:2}") int workerCount,
+            @Value("${app.reports.jobs.stale-after:15m}") Duration staleAfter,
+            @Value("${app.reports.jobs.max-attempts:3}") int maxAttempts) {
+        this.reportService = reportService;
+        this.contentStore = contentStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskExecutor = taskExecutor;
+        this.staleAfter = staleAfter;
+        this.maxAttempts = maxAttempts;
+        this.freeWorkers = new Semaphore(workerCount);
+        this.workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(workerCount);
+        workers.setMaxPoolSize(workerCount);
+        workers.setQueueCapacity(workerCount);
+        workers.setThreadNamePrefix("report-");
+        workers.initialize();
+    }
+
+    // Tras el commit del pedido; en otro thread, fuera de la transacción ya confirmada
+    @TransactionalEventListener
+    public void onReportRequested(ReportRequestedEvent event) {
+        taskExecutor.execute(this::pollQuietly);
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.jobs.poll-interval:PT10S}")
+    public void pollPeriodically() {
+        TenantContext.runCrossTenant(() -> {
+            int released = jdbcTemplate.update(RELEASE_STALE, maxAttempts, maxAttempts, maxAttempts,
+                    Timestamp.valueOf(LocalDateTime.now().minus(staleAfter)));
+            if (released > 0) {
+                log.warn("Released {} stale report jobs", released);
+            }
+            poll();
+        });
+    }
+
+    /** Toma tantos reportes pendientes como workers libres y los lanza. */
+    void poll() {
+        int slots = freeWorkers.availablePermits();
+        if (slots == 0 || !freeWorkers.tryAcquire(slots)) {
+            return;
+        }
+        List<Claim> claimed;
+        try {
+            claimed = jdbcTemplate.query(CLAIM, CLAIM_MAPPER, slots);
+        } catch (RuntimeException e) {
+            freeWorkers.release(slots);
+            throw e;
+        }
+        freeWorkers.release(slots - claimed.size());
+        claimed.forEach(claim -> workers.execute(() -> TenantContext.runCrossTenant(() -> run(claim))));
+    }
+
+    void run(Claim claim) {
+        Long reportId = claim.reportId();
+        try {
+            ReportContentStore.PreparedContent content = null;
+            String error = null;
+            try {
+                content = contentStore.prepare(reportId, out -> reportService.writeContent(reportId, out));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Report {} failed: {}", reportId, e.getMessage());
+                error = "Error: " + e.getMessage();
+            }
+            if (content == null) {
+                reportService.fail(reportId, claim.attempts(), error);
+            } else {
+                try (ReportContentStore.PreparedContent prepared = content) {
+                    reportService.complete(reportId, claim.attempts(), prepared);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Sin poder guardar el resultado queda RUNNING y lo retoma el barrido de stale-after
+            log.warn("Could not store result of report {}: {}", reportId, e.getMessage());
+        } finally {
+            freeWorkers.release();
+        }
+        // Un worker libre sigue con lo que haya quedado en cola
+        pollQuietly();
+    }
+
+    private void pollQuietly() {
+        try {
+            TenantContext.runCrossTenant(this::poll);
+        } catch (RuntimeException e) {
+            // Lo pendiente se toma en el próximo sondeo periódico
+            log.warn("Report queue poll failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Reporte tomado de la cola. El resultado se registra solo si el reporte
+     * sigue en este intento: si se dio por caído y otro worker lo volvió a
+     * tomar, attempts ya no coincide.
+     */
+    record Claim(Long reportId, int attempts) {
+    }
+}
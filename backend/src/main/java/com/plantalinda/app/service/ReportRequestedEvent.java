@@ -0,0 +1,7 @@
+package com.plantalinda.app.service;
+
+/**
+ * Se publica al encolar un reporte; ReportJobService lo atiende tras el commit.
+ */
+public record ReportRequestedEvent(Long reportId) {
+}
@@ -1,16 +1,38 @@
 package com.plantalinda.app.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plantalinda.app.dto.CursorPage;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.ReportSummaryResponse;
 import com.plantalinda.app.model.*;
 import com.plantalinda.app.repository.*;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-
+import java.util.stream.Stream;
+
+/**
+ * Reportes. generateReport solo encola el pedido (status PENDING); el
+ * contenido lo arma un worker de ReportJobService fuera de la petición HTTP.
+ *
+ * El JSON se escribe con el JsonGenerator del ObjectMapper compartido a
+ * medida que llegan las filas: los totales se agregan en la base de datos y
+ * los listados se leen con cursor, así la memoria por reporte no depende de
+ * la cantidad de lotes ni de registros.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ReportService {
@@ -22,6 +44,10 @@ public class ReportService {
     private final BatchLogRepository batchLogRepository;
 
     private final PermissionService permissionService;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ReportContentStore contentStore;
 
     @Transactional
     public Report generateReport(User user, ReportType type, LocalDateTime startDate, LocalDateTime endDate) {
@@ -30,136 +56,223 @@ public class ReportService {
             throw new RuntimeException("No tiene permisos para generar reportes");
         }
 
-        Report report = Report.builder()
+        Report report = reportRepository.save(Report.builder()
                 .user(user)
                 .type(type)
                 .startDate(startDate)
                 .endDate(endDate)
-                .status("PENDING")
-                .build();
-
-        try {
-            String content = generateReportContent(user, type, startDate, endDate);
-            report.setContent(content);
-            report.setStatus("COMPLETED");
-        } catch (Exception e) {
-            report.setStatus("FAILED");
-            report.setContent("Error: " + e.getMessage());
-        }
+                .status(Report.STATUS_PENDING)
+                .build());
 
-        return reportRepository.save(report);
+        eventPublisher.publishEvent(new ReportRequestedEvent(report.getId()));
+        return report;
     }
 
-    private String generateReportContent(User user, ReportType type, LocalDateTime startDate, LocalDateTime endDate) {
-        return switch (type) {
-            case REPROCANN_MONTHLY -> generateReprocannReport(user, startDate, endDate);
-            case INVENTORY_SUMMARY -> generateInventorySummary(user);
-            case BATCH_PRODUCTION -> generateBatchProductionReport(user, startDate, endDate);
-            case TRACEABILITY -> generateTraceabilityReport(user, startDate, endDate);
-            default -> "{}";
-        };
+    /**
+     * Escribe el JSON del reporte en out a medida que se leen las filas, sin
+     * armar antes el árbol del reporte en memoria.
+     */
+    @Transactional(readOnly = true)
+    public void writeContent(Long reportId, OutputStream out) {
+        Report report = reportRepository.findById(reportId)
+                .orElseThrow(() -> new RuntimeException("Reporte no encontrado"));
+        Long userId = report.getUser().getId();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            switch (report.getType()) {
+                case REPROCANN_MONTHLY -> writeReprocannReport(json, userId, report.getStartDate(), report.getEndDate());
+                case INVENTORY_SUMMARY -> writeInventorySummary(json, userId);
+                case BATCH_PRODUCTION -> writeBatchProductionReport(json, userId, report.getStartDate(),
+                        report.getEndDate());
+                case TRACEABILITY -> writeTraceabilityReport(json, userId, report.getStartDate(), report.getEndDate());
+                default -> {
+                }
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private String generateReprocannReport(User user, LocalDateTime startDate, LocalDateTime endDate) {
-        Map<String, Object> data = new HashMap<>();
-
-        // Obtener todos los lotes del período
-        List<Batch> batches = batchRepository.findByUserAndCreatedAtBetween(user, startDate, endDate);
+    /**
+     * Guarda el cuerpo en report_content, registra el resultado y avisa al
+     * usuario, en una transacción que bloquea el reporte solo si el intento
+     * sigue siendo el vigente. Un intento dado por caído no escribe nada.
+     */
+    @Transactional
+    public void complete(Long reportId, int attempts, ReportContentStore.PreparedContent content) {
+        if (reportRepository.lockAttempt(reportId, attempts).isEmpty()) {
+            notifyFinished(reportId, 0, Report.STATUS_COMPLETED);
+            return;
+        }
+        contentStore.save(reportId, content);
+        ReportContentStore.StoredContent stored = content.stored();
+        int updated = reportRepository.completeAttempt(reportId, attempts, stored.size(), stored.compressedSize(),
+                stored.etag(), LocalDateTime.now());
+        notifyFinished(reportId, updated, Report.STATUS_COMPLETED);
+    }
 
-        data.put("period", Map.of(
-                "start", startDate.toString(),
-                "end", endDate.toString()));
+    @Transactional
+    public void fail(Long reportId, int attempts, String error) {
+        int updated = reportRepository.failAttempt(reportId, attempts, error, LocalDateTime.now());
+        notifyFinished(reportId, updated, Report.STATUS_FAILED);
+    }
 
-        data.put("summary", Map.of(
-                "totalBatches", batches.size(),
-                "activeBatches", batches.stream().filter(b -> "ACTIVE".equals(b.getStatus())).count(),
-                "harvestedBatches", batches.stream().filter(b -> "HARVESTED".equals(b.getStatus())).count()));
+    /** Reporte del usuario, sin cargar los de su historial. */
+    public Report getUserReport(Long reportId, User user) {
+        return reportRepository.findByIdAndUserId(reportId, user.getId())
+                .orElseThrow(() -> new RuntimeException("Reporte no encontrado"));
+    }
 
-        // Producción total
-        double totalProduction = batches.stream()
-                .filter(b -> b.getHarvestYield() != null)
-                .mapToDouble(Batch::getHarvestYield)
-                .sum();
+    /**
+     * Avisa al usuario del resultado de un intento. No hace nada si el UPDATE
+     * no tocó el reporte: ya no está RUNNING o lo retomó otro intento tras
+     * darlo por caído, y el resultado que vale es el de ese intento.
+     */
+    private void notifyFinished(Long reportId, int updated, String status) {
+        if (updated == 0) {
+            log.info("Report {} was finished by another attempt; result discarded", reportId);
+            return;
+        }
+        Report report = reportRepository.findById(reportId).orElseThrow();
+        boolean completed = Report.STATUS_COMPLETED.equals(status);
+        notificationService.createNotification(report.getUser(),
+                completed ? "Reporte listo" : "Error al generar el reporte",
+                "Reporte " + report.getType() + " del " + report.getStartDate().toLocalDate() + " al "
+                        + report.getEndDate().toLocalDate(),
+                completed ? NotificationType.SUCCESS : NotificationType.ERROR,
+                "/reports");
+        log.info("Report {} {}", reportId, status);
+    }
 
-        data.put("production", Map.of(
-                "totalYield", totalProduction,
-                "unit", "g",
-                "averagePerBatch", batches.isEmpty() ? 0 : totalProduction / batches.size()));
+    private void writeReprocannReport(JsonGenerator json, Long userId, LocalDateTime startDate,
+            LocalDateTime endDate) throws IOException {
+        json.writeObjectFieldStart("period");
+        json.writeStringField("start", startDate.toString());
+        json.writeStringField("end", endDate.toString());
+        json.writeEndObject();
+
+        // Totales del período agregados en la base de datos
+        BatchRepository.PeriodTotalsView batches = batchRepository.summarizeByUserIdAndCreatedAtBetween(userId,
+                startDate, endDate);
+        json.writeObjectFieldStart("summary");
+        json.writeNumberField("totalBatches", batches.getTotal());
+        json.writeNumberField("activeBatches", batches.getActive());
+        json.writeNumberField("harvestedBatches", batches.getHarvested());
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("production");
+        json.writeNumberField("totalYield", batches.getTotalYield());
+        json.writeStringField("unit", "g");
+        if (batches.getTotal() == 0) {
+            json.writeNumberField("averagePerBatch", 0);
+        } else {
+            json.writeNumberField("averagePerBatch", batches.getTotalYield() / batches.getTotal());
+        }
+        json.writeEndObject();
 
         // Inventario actual
-        List<InventoryItem> inventory = inventoryItemRepository.findByUser(user);
-        data.put("inventory", Map.of(
-                "totalItems", inventory.size(),
-                "lowStockItems", inventory.stream().filter(InventoryItem::isLowStock).count()));
-
-        return convertToJson(data);
+        InventoryItemRepository.StockTotalsView inventory = inventoryItemRepository.summarizeByUserId(userId);
+        json.writeObjectFieldStart("inventory");
+        json.writeNumberField("totalItems", inventory.getTotal());
+        json.writeNumberField("lowStockItems", inventory.getLowStock());
+        json.writeEndObject();
     }
 
-    private String generateInventorySummary(User user) {
-        List<InventoryItem> items = inventoryItemRepository.findByUser(user);
-
-        Map<String, Object> data = new HashMap<>();
-        data.put("totalItems", items.size());
-        data.put("lowStockCount", items.stream().filter(InventoryItem::isLowStock).count());
+    private void writeInventorySummary(JsonGenerator json, Long userId) throws IOException {
+        InventoryItemRepository.StockTotalsView totals = inventoryItemRepository.summarizeByUserId(userId);
+        json.writeNumberField("totalItems", totals.getTotal());
+        json.writeNumberField("lowStockCount", totals.getLowStock());
 
         // Agrupar por tipo
-        Map<String, Long> byType = new HashMap<>();
-        items.forEach(item -> {
-            String type = item.getType().toString();
-            byType.put(type, byType.getOrDefault(type, 0L) + 1);
-        });
-        data.put("itemsByType", byType);
-
-        return convertToJson(data);
+        json.writeObjectFieldStart("itemsByType");
+        for (InventoryItemRepository.TypeCountView byType : inventoryItemRepository.countByTypeForUserId(userId)) {
+            json.writeNumberField(String.valueOf(byType.getType()), byType.getCount());
+        }
+        json.writeEndObject();
     }
 
-    private String generateBatchProductionReport(User user, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Batch> batches = batchRepository.findByUserAndCreatedAtBetween(user, startDate, endDate);
-
-        Map<String, Object> data = new HashMap<>();
-        data.put("totalBatches", batches.size());
-        data.put("batches", batches.stream().map(batch -> Map.of(
-                "id", batch.getId(),
-                "name", batch.getName(),
-                "strain", batch.getStrain() != null ? batch.getStrain() : "N/A",
-                "status", batch.getStatus() != null ? batch.getStatus() : "UNKNOWN",
-                "plantCount", batch.getPlantCount() != null ? batch.getPlantCount() : 0,
-                "harvestYield", batch.getHarvestYield() != null ? batch.getHarvestYield() : 0)).toList());
-
-        return convertToJson(data);
+    private void writeBatchProductionReport(JsonGenerator json, Long userId, LocalDateTime startDate,
+            LocalDateTime endDate) throws IOException {
+        long total = 0;
+        json.writeArrayFieldStart("batches");
+        try (Stream<BatchRepository.ProductionView> batches = batchRepository
+                .streamProductionByUserIdAndCreatedAtBetween(userId, startDate, endDate)) {
+            for (Iterator<BatchRepository.ProductionView> it = batches.iterator(); it.hasNext();) {
+                BatchRepository.ProductionView batch = it.next();
+                json.writeStartObject();
+                json.writeNumberField("id", batch.getId());
+                json.writeStringField("name", batch.getName());
+                json.writeStringField("strain", batch.getStrain() != null ? batch.getStrain() : "N/A");
+                json.writeStringField("status", batch.getStatus() != null ? batch.getStatus() : "UNKNOWN");
+                json.writeNumberField("plantCount", batch.getPlantCount() != null ? batch.getPlantCount() : 0);
+                if (batch.getHarvestYield() != null) {
+                    json.writeNumberField("harvestYield", batch.getHarvestYield());
+                } else {
+                    json.writeNumberField("harvestYield", 0);
+                }
+                json.writeEndObject();
+                total++;
+            }
+        }
+        json.writeEndArray();
+        // Al final: el total se conoce recién después de recorrer los lotes
+        json.writeNumberField("totalBatches", total);
     }
 
-    private String generateTraceabilityReport(User user, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Batch> batches = batchRepository.findByUserAndCreatedAtBetween(user, startDate, endDate);
-
-        Map<String, Object> data = new HashMap<>();
-        data.put("batches", batches.stream().map(batch -> {
-            List<BatchLog> logs = batchLogRepository.findByBatchOrderByTimestampDesc(batch);
-
-            return Map.of(
-                    "batchId", batch.getId(),
-                    "batchName", batch.getName(),
-                    "totalLogs", logs.size(),
-                    "timeline", logs.stream().map(log -> Map.of(
-                            "date", log.getTimestamp().toString(),
-                            "type", log.getType() != null ? log.getType() : "LOG",
-                            "notes", log.getNotes() != null ? log.getNotes() : "")).toList());
-        }).toList());
+    /**
+     * Dos consultas sin importar la cantidad de lotes: los lotes del período y
+     * el historial de todos ellos, ambos ordenados por lote, que se combinan
+     * en una sola pasada.
+     */
+    private void writeTraceabilityReport(JsonGenerator json, Long userId, LocalDateTime startDate,
+            LocalDateTime endDate) throws IOException {
+        List<BatchRepository.NameView> batches = batchRepository.findNamesByUserIdAndCreatedAtBetween(userId,
+                startDate, endDate);
+
+        json.writeArrayFieldStart("batches");
+        try (Stream<BatchLogRepository.TimelineView> timeline = batchLogRepository
+                .streamTimelineByUserIdAndCreatedAtBetween(userId, startDate, endDate)) {
+            Iterator<BatchLogRepository.TimelineView> logs = timeline.iterator();
+            BatchLogRepository.TimelineView next = logs.hasNext() ? logs.next() : null;
+
+            for (BatchRepository.NameView batch : batches) {
+                json.writeStartObject();
+                json.writeNumberField("batchId", batch.getId());
+                json.writeStringField("batchName", batch.getName());
+                int totalLogs = 0;
+                json.writeArrayFieldStart("timeline");
+                while (next != null && next.getBatchId().equals(batch.getId())) {
+                    json.writeStartObject();
+                    json.writeStringField("date", next.getTimestamp().toString());
+                    json.writeStringField("type", next.getType() != null ? next.getType() : "LOG");
+                    json.writeStringField("notes", next.getNotes() != null ? next.getNotes() : "");
+                    json.writeEndObject();
+                    totalLogs++;
+                    next = logs.hasNext() ? logs.next() : null;
+                }
+                json.writeEndArray();
+                json.writeNumberField("totalLogs", totalLogs);
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+    }
 
-        return convertToJson(data);
+    public List<ReportSummaryResponse> getUserReports(User user) {
+        return reportRepository.findPageByUserId(user.getId(), Pageable.unpaged());
     }
 
-    public List<Report> getUserReports(User user) {
-        return reportRepository.findByUserOrderByCreatedAtDesc(user);
+    public CursorPage<ReportSummaryResponse> getUserReports(User user, KeysetPageRequest page) {
+        List<ReportSummaryResponse> rows = page.isFirstPage()
+                ? reportRepository.findPageByUserId(user.getId(), page.probe())
+                : reportRepository.findPageByUserIdAfter(user.getId(),
+                        page.after().timestamp(), page.after().id(), page.probe());
+        return CursorPage.of(rows, page, r -> new KeysetCursor(r.getCreatedAt(), r.getId()), r -> r);
     }
 
-    private String convertToJson(Map<String, Object> data) {
-        // Implementación simple de conversión a JSON
-        // En producción, usar ObjectMapper de Jackson
-        try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(data);
-        } catch (Exception e) {
-            return "{}";
-        }
+    public ReportSummaryResponse getUserReportSummary(Long reportId, User user) {
+        return reportRepository.findSummaryByIdAndUserId(reportId, user.getId())
+                .orElseThrow(() -> new RuntimeException("Reporte no encontrado"));
     }
 }
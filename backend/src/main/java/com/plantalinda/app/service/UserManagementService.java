@@ -5,6 +5,7 @@ import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.OrganizationRepository;
 import com.plantalinda.app.repository.UserRepository;
+import com.plantalinda.app.security.SecurityVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,6 +29,7 @@ public class UserManagementService {
     private final PermissionService permissionService;
     private final OrganizationService organizationService;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityVersionService securityVersionService;
 
     /**
      * Obtiene todos los miembros ACTIVOS de la organización del usuario
@@ -151,6 +153,7 @@ public class UserManagementService {
 
         Role oldRole = userToUpdate.getRole();
         userToUpdate.setRole(newRole);
+        securityVersionService.revoke(userToUpdate); // El rol viaja en el JWT
 
         User updated = userRepository.save(userToUpdate);
 
@@ -203,6 +206,7 @@ public class UserManagementService {
         userToRemove.setActive(false);
         userToRemove.setDeletedAt(java.time.LocalDateTime.now());
         userToRemove.setDeletedBy(admin.getId());
+        securityVersionService.revoke(userToRemove);
         userRepository.save(userToRemove);
 
         log.warn("User SOFT deleted: {} from organization: {} by {}",
@@ -236,6 +240,7 @@ public class UserManagementService {
         userToRestore.setActive(true);
         userToRestore.setDeletedAt(null);
         userToRestore.setDeletedBy(null);
+        securityVersionService.revoke(userToRestore);
 
         User restored = userRepository.save(userToRestore);
 
@@ -0,0 +1,21 @@
+-- =====================================================
+-- Script de Migración V10: Marca de stock bajo en inventory_item
+-- Versión: 10.0
+-- Descripción: below_minimum se mantiene en cada escritura de stock
+-- (current_quantity < minimum_quantity). El índice parcial contiene solo los
+-- items bajo mínimo, así el listado de stock bajo de una organización lee
+-- tantas filas como items bajo mínimo tenga, no todo su inventario.
+-- =====================================================
+
+ALTER TABLE inventory_item
+ADD COLUMN IF NOT EXISTS below_minimum BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE inventory_item
+SET below_minimum = (minimum_quantity IS NOT NULL AND current_quantity < minimum_quantity);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_item_org_below_minimum
+    ON inventory_item(organization_id) WHERE below_minimum;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V10
+-- =====================================================
@@ -0,0 +1,33 @@
+-- =====================================================
+-- Script de Migración V11: Valuación de inventario por costo promedio ponderado
+-- Versión: 11.0
+-- Descripción: inventory_item.average_cost es el costo unitario promedio
+-- ponderado del stock, recalculado en cada entrada con costo.
+-- inventory_movement.unit_cost es el costo unitario con el que se valoró
+-- cada movimiento (promedio vigente para salidas, costo de compra para
+-- entradas), así el costo consumido por un lote es una suma directa.
+-- =====================================================
+
+ALTER TABLE inventory_item ADD COLUMN IF NOT EXISTS average_cost DOUBLE PRECISION;
+ALTER TABLE inventory_movement ADD COLUMN IF NOT EXISTS unit_cost DOUBLE PRECISION;
+
+-- Punto de partida: el costo unitario cargado en el item. El historial
+-- previo no se revalúa; sus movimientos toman el costo de compra si lo
+-- tienen y si no el del item.
+UPDATE inventory_item SET average_cost = unit_cost WHERE average_cost IS NULL;
+
+UPDATE inventory_movement m
+SET unit_cost = CASE
+        WHEN m.quantity > 0 AND m.cost IS NOT NULL THEN m.cost / m.quantity
+        ELSE i.unit_cost
+    END
+FROM inventory_item i
+WHERE i.id = m.inventory_item_id AND m.unit_cost IS NULL;
+
+-- Costo consumido por lote
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_batch
+    ON inventory_movement(batch_id) WHERE batch_id IS NOT NULL;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V11
+-- =====================================================
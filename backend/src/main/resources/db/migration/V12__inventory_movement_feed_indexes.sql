@@ -0,0 +1,36 @@
+-- =====================================================
+-- Script de Migración V12: Índices del feed de movimientos de la organización
+-- Versión: 12.0
+-- Descripción: Índices compuestos (filtro, timestamp DESC, id DESC) para el
+-- feed paginado con keyset. Cada filtro del feed tiene un índice cuyo
+-- prefijo coincide con él; los filtros combinados usan el más selectivo y
+-- verifican el resto sobre las filas que recorre.
+-- =====================================================
+
+-- Feed completo y rangos de fecha de la organización
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_org_timestamp
+    ON inventory_movement(organization_id, "timestamp" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_org_type_timestamp
+    ON inventory_movement(organization_id, type, "timestamp" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_org_user_timestamp
+    ON inventory_movement(organization_id, user_id, "timestamp" DESC, id DESC);
+
+-- Un item pertenece a una sola organización: basta el item como prefijo.
+-- También sirve al stock a una fecha (V9).
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_item_timestamp_id
+    ON inventory_movement(inventory_item_id, "timestamp" DESC, id DESC);
+
+-- Igual para el lote; también sirve al costo consumido por lote (V11)
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_batch_timestamp
+    ON inventory_movement(batch_id, "timestamp" DESC, id DESC) WHERE batch_id IS NOT NULL;
+
+-- Quedan cubiertos por los anteriores
+DROP INDEX IF EXISTS idx_inventory_movement_organization;
+DROP INDEX IF EXISTS idx_inventory_movement_item_timestamp;
+DROP INDEX IF EXISTS idx_inventory_movement_batch;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V12
+-- =====================================================
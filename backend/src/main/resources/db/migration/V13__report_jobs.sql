@@ -0,0 +1,25 @@
+-- =====================================================
+-- Script de Migración V13: Generación asíncrona de reportes
+-- Versión: 13.0
+-- Descripción: La fila de reports es el estado durable del trabajo:
+-- PENDING (en cola) -> RUNNING (tomado por un worker) -> COMPLETED | FAILED.
+-- Los workers toman trabajos con FOR UPDATE SKIP LOCKED, así varias
+-- réplicas consumen la misma cola sin tomar dos veces el mismo reporte.
+-- Un RUNNING sin terminar pasado stale-after (réplica caída) vuelve a
+-- PENDING hasta max-attempts intentos.
+-- =====================================================
+
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS started_at TIMESTAMP;
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS completed_at TIMESTAMP;
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+
+-- Los reportes existentes se generaron de forma síncrona
+UPDATE reports SET completed_at = created_at WHERE status IN ('COMPLETED', 'FAILED') AND completed_at IS NULL;
+
+-- Cola: solo las filas pendientes o en curso, en orden de llegada
+CREATE INDEX IF NOT EXISTS idx_reports_queue
+    ON reports(status, created_at, id) WHERE status IN ('PENDING', 'RUNNING');
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V13
+-- =====================================================
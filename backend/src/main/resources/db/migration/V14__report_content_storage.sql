@@ -0,0 +1,30 @@
+-- =====================================================
+-- Script de Migración V14: Contenido de reportes comprimido fuera de la fila
+-- Versión: 14.0
+-- Descripción: El cuerpo de cada reporte se guarda en gzip en
+-- report_content; reports conserva solo metadatos (tamaño y ETag), así los
+-- listados no arrastran el contenido. STORAGE EXTERNAL evita que Postgres
+-- vuelva a comprimir el gzip y permite leer rangos con substring() trayendo
+-- solo los chunks TOAST necesarios.
+-- reports.content queda para el mensaje de error de los FAILED y para los
+-- reportes generados antes de esta migración.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS report_content (
+    report_id BIGINT PRIMARY KEY REFERENCES reports(id) ON DELETE CASCADE,
+    body BYTEA NOT NULL
+);
+
+ALTER TABLE report_content ALTER COLUMN body SET STORAGE EXTERNAL;
+
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS content_size BIGINT;
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS compressed_size BIGINT;
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS content_etag VARCHAR(64);
+
+-- Tamaño de los reportes previos, que siguen sirviéndose desde content
+UPDATE reports SET content_size = octet_length(content)
+WHERE status = 'COMPLETED' AND content IS NOT NULL AND content_size IS NULL;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V14
+-- =====================================================
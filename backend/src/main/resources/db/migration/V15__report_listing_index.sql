@@ -0,0 +1,14 @@
+-- =====================================================
+-- Script de Migración V15: Índice del historial de reportes
+-- Versión: 15.0
+-- Descripción: El listado de reportes se pagina con keyset por
+-- (created_at DESC, id DESC) dentro de cada usuario; la búsqueda por
+-- id + usuario usa la clave primaria.
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_reports_user_created
+    ON reports(user_id, created_at DESC, id DESC);
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V15
+-- =====================================================
@@ -0,0 +1,77 @@
+-- =====================================================
+-- Script de Migración V16: Row-Level Security sin fallback abierto
+-- Versión: 16.0
+-- Descripción: Reemplaza las políticas de V6, V8 y V9 y agrega la de
+-- report_content (V14). Sin app.tenant_id no se ve
+-- ninguna fila (antes se veían todas), y organization_id = app_current_tenant()
+-- queda como única condición, así el planner la usa en los índices de
+-- organization_id. TenantRlsDataSource fija app.tenant_id en cada conexión
+-- que se toma durante una petición.
+-- Las tareas de fondo (purgas, snapshots, cola de reportes) se conectan con
+-- plantalinda_background, que tiene BYPASSRLS.
+--
+-- IMPORTANTE: aplicar solo junto con app.tenant.rls.enabled=true. Con el modo
+-- desactivado un rol sin BYPASSRLS no vería filas; para volver atrás usar el
+-- ROLLBACK de V6.
+-- =====================================================
+
+-- PASO 1: Tablas con organization_id
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['batch', 'inventory_item', 'inventory_movement', 'diagnosis', 'notifications',
+                             'inventory_stock_snapshot']
+    LOOP
+        EXECUTE format('DROP POLICY IF EXISTS tenant_isolation ON %I', t);
+        EXECUTE format(
+            'CREATE POLICY tenant_isolation ON %I '
+            'USING (organization_id = app_current_tenant()) '
+            'WITH CHECK (organization_id = app_current_tenant())', t);
+    END LOOP;
+END $$;
+
+-- PASO 2: batch_log (se acota por el lote)
+DROP POLICY IF EXISTS tenant_isolation ON batch_log;
+CREATE POLICY tenant_isolation ON batch_log
+    USING (batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()))
+    WITH CHECK (batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()));
+
+-- PASO 3: reports (se acota por el usuario)
+DROP POLICY IF EXISTS tenant_isolation ON reports;
+CREATE POLICY tenant_isolation ON reports
+    USING (user_id IN (SELECT u.id FROM _user u WHERE u.organization_id = app_current_tenant()))
+    WITH CHECK (user_id IN (SELECT u.id FROM _user u WHERE u.organization_id = app_current_tenant()));
+
+-- PASO 4: batch_reading_rollup (V8, se acota por el lote)
+DROP POLICY IF EXISTS tenant_isolation ON batch_reading_rollup;
+CREATE POLICY tenant_isolation ON batch_reading_rollup
+    USING (batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()))
+    WITH CHECK (batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()));
+
+-- PASO 5: report_content (V14, se acota por el reporte y su usuario)
+ALTER TABLE report_content ENABLE ROW LEVEL SECURITY;
+ALTER TABLE report_content FORCE ROW LEVEL SECURITY;
+DROP POLICY IF EXISTS tenant_isolation ON report_content;
+CREATE POLICY tenant_isolation ON report_content
+    USING (report_id IN (SELECT r.id FROM reports r JOIN _user u ON u.id = r.user_id
+                         WHERE u.organization_id = app_current_tenant()))
+    WITH CHECK (report_id IN (SELECT r.id FROM reports r JOIN _user u ON u.id = r.user_id
+                              WHERE u.organization_id = app_current_tenant()));
+
+-- PASO 6: Rol de las tareas de fondo (app.tenant.rls.background.username)
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_roles WHERE rolname = 'plantalinda_background') THEN
+        CREATE ROLE plantalinda_background LOGIN BYPASSRLS;
+    END IF;
+END $$;
+
+-- Completar con el rol de la aplicación y la contraseña del entorno; el rol de
+-- fondo hereda sus privilegios sobre las tablas:
+-- GRANT <rol de la aplicación> TO plantalinda_background;
+-- ALTER ROLE plantalinda_background PASSWORD '<TENANT_RLS_BACKGROUND_PASSWORD>';
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V16
+-- =====================================================
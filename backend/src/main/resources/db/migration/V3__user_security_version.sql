@@ -0,0 +1,13 @@
+-- =====================================================
+-- Script de Migración V3: Versión de seguridad de usuarios
+-- Versión: 3.0
+-- Descripción: Permite revocar JWT emitidos (cambio de rol, baja de
+-- usuario o cambio de plan) sin consultar la BD en cada petición
+-- =====================================================
+
+ALTER TABLE _user
+ADD COLUMN IF NOT EXISTS security_version BIGINT NOT NULL DEFAULT 0;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V3
+-- =====================================================
@@ -0,0 +1,19 @@
+-- =====================================================
+-- Script de Migración V4: Rate limiting distribuido
+-- Versión: 4.0
+-- Descripción: Estado de los buckets de rate limiting compartido entre
+-- réplicas (rate-limit.distributed.enabled=true)
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    state BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Limpieza periódica de buckets inactivos
+CREATE INDEX IF NOT EXISTS idx_rate_limit_bucket_updated_at ON rate_limit_bucket(updated_at);
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V4
+-- =====================================================
@@ -0,0 +1,38 @@
+-- =====================================================
+-- Script de Migración V5: Filtro de tenant en SQL
+-- Versión: 5.0
+-- Descripción: Completa organization_id en las entidades que filtra el
+-- tenantFilter de Hibernate e indexa las columnas usadas por el filtro
+-- =====================================================
+
+-- PASO 1: notifications (V1/V2 apuntaban a la tabla "notification")
+ALTER TABLE notifications
+ADD COLUMN IF NOT EXISTS organization_id BIGINT;
+
+UPDATE notifications n
+SET organization_id = u.organization_id
+FROM _user u
+WHERE n.user_id = u.id
+AND n.organization_id IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_notifications_organization ON notifications(organization_id);
+
+-- PASO 2: Diagnósticos y movimientos creados sin organización después de V2
+UPDATE diagnosis d
+SET organization_id = u.organization_id
+FROM _user u
+WHERE d.user_id = u.id
+AND d.organization_id IS NULL;
+
+UPDATE inventory_movement im
+SET organization_id = u.organization_id
+FROM _user u
+WHERE im.user_id = u.id
+AND im.organization_id IS NULL;
+
+-- PASO 3: Índices para el filtro (batch_log se acota por batch.organization_id)
+CREATE INDEX IF NOT EXISTS idx_batch_log_batch ON batch_log(batch_id);
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V5
+-- =====================================================
@@ -0,0 +1,65 @@
+-- =====================================================
+-- Script de Migración V6: Row-Level Security por tenant
+-- Versión: 6.0
+-- Descripción: Políticas RLS sobre las tablas multi-tenant de V1/V2, ligadas
+-- a app.tenant_id (lo fija TenantRlsDataSource con app.tenant.rls.enabled=true)
+--
+-- Sin app.tenant_id (modo RLS desactivado, login, tareas de fondo) las
+-- políticas dejan pasar todas las filas: aplicar este script no cambia el
+-- comportamiento hasta activar el modo. V16 reemplaza estas políticas por
+-- otras que no dejan pasar filas sin tenant.
+-- NOTA: los superusuarios de Postgres ignoran RLS; la aplicación debe
+-- conectarse con un rol sin BYPASSRLS.
+-- =====================================================
+
+-- PASO 1: Tenant actual (NULL si no está fijado). STABLE + SQL permite que el
+-- planner lo inline y use los índices de organization_id
+CREATE OR REPLACE FUNCTION app_current_tenant() RETURNS BIGINT AS $$
+    SELECT NULLIF(current_setting('app.tenant_id', true), '')::BIGINT
+$$ LANGUAGE sql STABLE;
+
+-- PASO 2: Tablas con organization_id
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['batch', 'inventory_item', 'inventory_movement', 'diagnosis', 'notifications']
+    LOOP
+        EXECUTE format('ALTER TABLE %I ENABLE ROW LEVEL SECURITY', t);
+        -- FORCE: la política aplica también al dueño de la tabla (usuario de la app)
+        EXECUTE format('ALTER TABLE %I FORCE ROW LEVEL SECURITY', t);
+        EXECUTE format('DROP POLICY IF EXISTS tenant_isolation ON %I', t);
+        EXECUTE format(
+            'CREATE POLICY tenant_isolation ON %I '
+            'USING (app_current_tenant() IS NULL OR organization_id = app_current_tenant()) '
+            'WITH CHECK (app_current_tenant() IS NULL OR organization_id = app_current_tenant())', t);
+    END LOOP;
+END $$;
+
+-- PASO 3: batch_log (sin organization_id, se acota por el lote)
+ALTER TABLE batch_log ENABLE ROW LEVEL SECURITY;
+ALTER TABLE batch_log FORCE ROW LEVEL SECURITY;
+DROP POLICY IF EXISTS tenant_isolation ON batch_log;
+CREATE POLICY tenant_isolation ON batch_log
+    USING (app_current_tenant() IS NULL
+        OR batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()))
+    WITH CHECK (app_current_tenant() IS NULL
+        OR batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()));
+
+-- PASO 4: reports (V1 apuntaba a "report"; la entidad no tiene organization_id)
+ALTER TABLE reports ENABLE ROW LEVEL SECURITY;
+ALTER TABLE reports FORCE ROW LEVEL SECURITY;
+DROP POLICY IF EXISTS tenant_isolation ON reports;
+CREATE POLICY tenant_isolation ON reports
+    USING (app_current_tenant() IS NULL
+        OR user_id IN (SELECT u.id FROM _user u WHERE u.organization_id = app_current_tenant()))
+    WITH CHECK (app_current_tenant() IS NULL
+        OR user_id IN (SELECT u.id FROM _user u WHERE u.organization_id = app_current_tenant()));
+
+-- ROLLBACK (desactivar RLS):
+-- ALTER TABLE <tabla> NO FORCE ROW LEVEL SECURITY;
+-- ALTER TABLE <tabla> DISABLE ROW LEVEL SECURITY;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V6
+-- =====================================================
@@ -0,0 +1,28 @@
+-- =====================================================
+-- Script de Migración V7: Índices para paginación keyset
+-- Versión: 7.0
+-- Descripción: Índices compuestos (filtro, timestamp DESC, id DESC) que
+-- sirven cada página de los listados con un index scan acotado
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_batch_org_created
+    ON batch(organization_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_batch_log_batch_timestamp
+    ON batch_log(batch_id, "timestamp" DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created
+    ON notifications(user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_diagnosis_user_created
+    ON diagnosis(user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_item_org_created
+    ON inventory_item(organization_id, created_at DESC, id DESC);
+
+-- idx_batch_log_batch (V5) queda cubierto por idx_batch_log_batch_timestamp
+DROP INDEX IF EXISTS idx_batch_log_batch;
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V7
+-- =====================================================
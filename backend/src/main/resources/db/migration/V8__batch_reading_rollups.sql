@@ -0,0 +1,46 @@
+-- =====================================================
+-- Script de Migración V8: Rollups de lecturas de bitácora
+-- Versión: 8.0
+-- Descripción: Agregados por hora y por día (min/max/suma/cantidad por
+-- métrica) de las lecturas de cada lote, mantenidos de forma incremental por
+-- la aplicación. Tras aplicarla, arrancar una vez con
+-- app.rollups.backfill-on-startup=true para poblarla desde batch_log.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS batch_reading_rollup (
+    batch_id BIGINT NOT NULL REFERENCES batch(id) ON DELETE CASCADE,
+    granularity VARCHAR(8) NOT NULL CHECK (granularity IN ('HOUR', 'DAY')),
+    bucket_start TIMESTAMP(6) NOT NULL,
+    ph_min DOUBLE PRECISION,
+    ph_max DOUBLE PRECISION,
+    ph_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ph_count BIGINT NOT NULL DEFAULT 0,
+    ec_min DOUBLE PRECISION,
+    ec_max DOUBLE PRECISION,
+    ec_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ec_count BIGINT NOT NULL DEFAULT 0,
+    temperature_min DOUBLE PRECISION,
+    temperature_max DOUBLE PRECISION,
+    temperature_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    temperature_count BIGINT NOT NULL DEFAULT 0,
+    humidity_min DOUBLE PRECISION,
+    humidity_max DOUBLE PRECISION,
+    humidity_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    humidity_count BIGINT NOT NULL DEFAULT 0,
+    -- La clave primaria sirve tanto el upsert como la lectura por rango
+    PRIMARY KEY (batch_id, granularity, bucket_start)
+);
+
+-- Row-level security (ver V6): se acota por el lote, igual que batch_log
+ALTER TABLE batch_reading_rollup ENABLE ROW LEVEL SECURITY;
+ALTER TABLE batch_reading_rollup FORCE ROW LEVEL SECURITY;
+DROP POLICY IF EXISTS tenant_isolation ON batch_reading_rollup;
+CREATE POLICY tenant_isolation ON batch_reading_rollup
+    USING (app_current_tenant() IS NULL
+        OR batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()))
+    WITH CHECK (app_current_tenant() IS NULL
+        OR batch_id IN (SELECT b.id FROM batch b WHERE b.organization_id = app_current_tenant()));
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V8
+-- =====================================================
@@ -0,0 +1,35 @@
+-- =====================================================
+-- Script de Migración V9: Snapshots diarios de stock
+-- Versión: 9.0
+-- Descripción: Cantidad de cada item al cierre de cada día. El stock a una
+-- fecha se calcula desde el snapshot anterior más cercano sumando los
+-- movimientos posteriores, en vez de recorrer todo el historial. La
+-- aplicación genera los snapshots cada noche; sin snapshots previos las
+-- consultas recorren el historial completo del item, con el mismo resultado.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS inventory_stock_snapshot (
+    inventory_item_id BIGINT NOT NULL REFERENCES inventory_item(id) ON DELETE CASCADE,
+    -- Stock al final de este día (válido desde snapshot_date + 1 a las 00:00)
+    snapshot_date DATE NOT NULL,
+    quantity DOUBLE PRECISION NOT NULL,
+    organization_id BIGINT REFERENCES organization(id),
+    -- La clave primaria sirve el upsert y la búsqueda del snapshot más cercano
+    PRIMARY KEY (inventory_item_id, snapshot_date)
+);
+
+-- Replay de movimientos desde el snapshot: rango por item y fecha
+CREATE INDEX IF NOT EXISTS idx_inventory_movement_item_timestamp
+    ON inventory_movement(inventory_item_id, "timestamp");
+
+-- Row-level security (ver V6)
+ALTER TABLE inventory_stock_snapshot ENABLE ROW LEVEL SECURITY;
+ALTER TABLE inventory_stock_snapshot FORCE ROW LEVEL SECURITY;
+DROP POLICY IF EXISTS tenant_isolation ON inventory_stock_snapshot;
+CREATE POLICY tenant_isolation ON inventory_stock_snapshot
+    USING (app_current_tenant() IS NULL OR organization_id = app_current_tenant())
+    WITH CHECK (app_current_tenant() IS NULL OR organization_id = app_current_tenant());
+
+-- =====================================================
+-- FIN DEL SCRIPT DE MIGRACIÓN V9
+-- =====================================================
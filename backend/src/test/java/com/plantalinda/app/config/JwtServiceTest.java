@@ -0,0 +1,79 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.PlanType;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = new JwtService(SECRET, 60_000, 100, meterRegistry);
+        user = User.builder()
+                .id(1L)
+                .email("test@example.com")
+                .role(Role.OPERATOR)
+                .build();
+    }
+
+    @Test
+    void resolveClaims_ShouldVerifySignatureOnlyOncePerToken() {
+        String token = jwtService.generateToken(Map.of("role", "OPERATOR"), user);
+
+        Claims first = jwtService.resolveClaims(token);
+        String username = jwtService.extractUsername(token);
+        boolean valid = jwtService.isTokenValid(token, user);
+
+        assertEquals("test@example.com", first.getSubject());
+        assertEquals("test@example.com", username);
+        assertTrue(valid);
+        assertEquals(1, meterRegistry.get("jwt.verification").timer().count());
+    }
+
+    @Test
+    void resolveClaims_WithTamperedToken_ShouldThrow() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> jwtService.resolveClaims(tampered));
+    }
+
+    @Test
+    void isTokenValid_WithDifferentUser_ShouldReturnFalse() {
+        String token = jwtService.generateToken(user);
+        User other = User.builder().email("other@example.com").role(Role.VIEWER).build();
+
+        assertFalse(jwtService.isTokenValid(token, other));
+    }
+
+    @Test
+    void generateToken_ForPrincipal_ShouldCarryVersionOrganizationAndPlan() {
+        Organization organization = Organization.builder().id(4L).plan(PlanType.PRO).build();
+
+        Claims claims = jwtService.resolveClaims(jwtService.generateToken(user, 7L, organization));
+
+        assertEquals("test@example.com", claims.getSubject());
+        assertEquals(1L, claims.get(JwtService.CLAIM_USER_ID, Long.class));
+        assertEquals(7L, claims.get(JwtService.CLAIM_SECURITY_VERSION, Long.class));
+        assertEquals("OPERATOR", claims.get(JwtService.CLAIM_ROLE, String.class));
+        assertEquals(4L, claims.get(JwtService.CLAIM_ORGANIZATION_ID, Long.class));
+        assertEquals("PRO", claims.get(JwtService.CLAIM_PLAN, String.class));
+    }
+}
@@ -0,0 +1,81 @@
+package com.plantalinda.app.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba contra un Postgres local. Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class PostgresBucketProxyManagerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("TEST_DB_URL"),
+                System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_bucket ("
+                + "bucket_key VARCHAR(255) PRIMARY KEY, state BYTEA NOT NULL, "
+                + "updated_at TIMESTAMP NOT NULL DEFAULT now())");
+        properties = new RateLimitProperties();
+    }
+
+    @Test
+    void replicas_ShouldShareTheSameLimit() {
+        String key = "test:" + UUID.randomUUID();
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(5, Refill.greedy(5, Duration.ofMinutes(1))))
+                .build();
+
+        // Dos instancias simulan dos réplicas del backend
+        Bucket replicaA = new PostgresBucketProxyManager(jdbcTemplate, properties).builder().build(key, configuration);
+        Bucket replicaB = new PostgresBucketProxyManager(jdbcTemplate, properties).builder().build(key, configuration);
+
+        int consumed = 0;
+        for (int i = 0; i < 5; i++) {
+            if (replicaA.tryConsume(1)) consumed++;
+            if (replicaB.tryConsume(1)) consumed++;
+        }
+
+        assertEquals(5, consumed);
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key = ?", key);
+    }
+
+    @Test
+    void asyncBucket_ShouldShareTheStateOfTheSyncOne() throws Exception {
+        String key = "test:" + UUID.randomUUID();
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(3, Refill.greedy(3, Duration.ofMinutes(1))))
+                .build();
+        PostgresBucketProxyManager proxyManager = new PostgresBucketProxyManager(jdbcTemplate, properties);
+        Bucket bucket = proxyManager.builder().build(key, configuration);
+        AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(key, configuration);
+
+        assertTrue(bucket.tryConsume(2));
+        assertTrue(asyncBucket.tryConsume(1).get());
+        assertFalse(asyncBucket.tryConsume(1).get());
+
+        proxyManager.asAsync().removeProxy(key).get();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_bucket WHERE bucket_key = ?",
+                Integer.class, key));
+    }
+}
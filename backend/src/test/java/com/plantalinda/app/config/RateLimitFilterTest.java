@@ -0,0 +1,112 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.PlanType;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setAnonymous(new RateLimitProperties.Limit(2, Duration.ofMinutes(1)));
+        properties.getPlans().put(PlanType.PRO, new RateLimitProperties.Limit(5, Duration.ofMinutes(1)));
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(properties, meterRegistry, Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousRequests_ShouldBeLimitedByIpWithRetryAfter() throws Exception {
+        assertEquals(200, call("10.0.0.1").getStatus());
+        assertEquals(200, call("10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = call("10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("X-RateLimit-Limit"));
+        assertEquals("0", rejected.getHeader("X-RateLimit-Remaining"));
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("ratelimit.rejections").tag("tier", "ANONYMOUS").counter().count());
+
+        // Otra IP tiene su propio bucket
+        assertEquals(200, call("10.0.0.2").getStatus());
+    }
+
+    @Test
+    void authenticatedRequests_ShouldUsePlanLimit() throws Exception {
+        User user = User.builder()
+                .id(7L)
+                .email("pro@example.com")
+                .role(Role.MANAGER)
+                .organization(Organization.builder().id(3L).plan(PlanType.PRO).build())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        MockHttpServletResponse response = call("10.0.0.1");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("5", response.getHeader("X-RateLimit-Limit"));
+        assertEquals("4", response.getHeader("X-RateLimit-Remaining"));
+        assertEquals(1.0, meterRegistry.get("ratelimit.buckets").gauge().value());
+    }
+
+    @Test
+    void distributedMode_WhenDatabaseFails_ShouldFallBackToLocalLimit() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setAnonymous(new RateLimitProperties.Limit(2, Duration.ofMinutes(1)));
+        properties.getDistributed().setEnabled(true);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<byte[]>>any(), any(Object[].class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        filter = new RateLimitFilter(properties, meterRegistry,
+                Optional.of(new PostgresBucketProxyManager(jdbcTemplate, properties)));
+
+        assertEquals(200, call("10.0.0.1").getStatus());
+        assertEquals(200, call("10.0.0.1").getStatus());
+        assertEquals(429, call("10.0.0.1").getStatus());
+
+        // Durante la ventana de respaldo no se vuelve a consultar la BD
+        verify(jdbcTemplate, times(1)).query(anyString(), ArgumentMatchers.<RowMapper<byte[]>>any(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.get("ratelimit.distributed.fallbacks").counter().count());
+    }
+
+    private MockHttpServletResponse call(String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/batches");
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package com.plantalinda.app.config;
+
+import com.plantalinda.app.security.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba contra un Postgres local, en un esquema propio y con roles propios
+ * (el usuario de la prueba debe poder crear roles). Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class TenantRlsDataSourceTest {
+
+    private static final String SCHEMA = "tenant_rls_test";
+    private static final String APP_ROLE = "tenant_rls_test_app";
+    private static final String BACKGROUND_ROLE = "tenant_rls_test_background";
+
+    private JdbcTemplate admin;
+    private SingleConnectionDataSource appConnection;
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        admin = new JdbcTemplate(dataSource(System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres")));
+        admin.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        admin.execute("DROP ROLE IF EXISTS " + BACKGROUND_ROLE);
+        admin.execute("DROP ROLE IF EXISTS " + APP_ROLE);
+        admin.execute("CREATE ROLE " + APP_ROLE + " LOGIN PASSWORD '" + APP_ROLE + "'");
+        admin.execute("CREATE ROLE " + BACKGROUND_ROLE + " LOGIN BYPASSRLS PASSWORD '" + BACKGROUND_ROLE + "' IN ROLE "
+                + APP_ROLE);
+        admin.execute("CREATE SCHEMA " + SCHEMA + " AUTHORIZATION " + APP_ROLE);
+
+        // Mismas políticas que V6 + V16, sobre una copia mínima de batch
+        JdbcTemplate owner = new JdbcTemplate(dataSource(APP_ROLE, APP_ROLE));
+        owner.execute("CREATE FUNCTION " + SCHEMA + ".app_current_tenant() RETURNS BIGINT AS $$ "
+                + "SELECT NULLIF(current_setting('app.tenant_id', true), '')::BIGINT $$ LANGUAGE sql STABLE");
+        owner.execute("CREATE TABLE " + SCHEMA + ".batch (id BIGSERIAL PRIMARY KEY, organization_id BIGINT)");
+        owner.execute("INSERT INTO " + SCHEMA + ".batch (organization_id) VALUES (1), (1), (2)");
+        owner.execute("ALTER TABLE " + SCHEMA + ".batch ENABLE ROW LEVEL SECURITY");
+        owner.execute("ALTER TABLE " + SCHEMA + ".batch FORCE ROW LEVEL SECURITY");
+        owner.execute("CREATE POLICY tenant_isolation ON " + SCHEMA + ".batch "
+                + "USING (organization_id = " + SCHEMA + ".app_current_tenant()) "
+                + "WITH CHECK (organization_id = " + SCHEMA + ".app_current_tenant())");
+
+        // Una sola conexión física: cada préstamo reutiliza la del anterior, como el pool
+        appConnection = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"), APP_ROLE, APP_ROLE, true);
+        meterRegistry = new SimpleMeterRegistry();
+        TenantRlsDataSource dataSource = new TenantRlsDataSource(appConnection,
+                dataSource(BACKGROUND_ROLE, BACKGROUND_ROLE), () -> meterRegistry);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        appConnection.destroy();
+        admin.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        admin.execute("DROP ROLE IF EXISTS " + BACKGROUND_ROLE);
+        admin.execute("DROP ROLE IF EXISTS " + APP_ROLE);
+    }
+
+    @Test
+    void nonTransactionalRead_ShouldOnlySeeTheRequestTenant() {
+        TenantContext.runWithTenant(1L, () -> {
+            assertEquals(2, countBatches());
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + SCHEMA + ".batch WHERE organization_id = 2", Integer.class));
+        });
+        TenantContext.runWithTenant(2L, () -> assertEquals(1, countBatches()));
+        assertEquals(3, meterRegistry.timer("tenant.rls.set_config").count());
+    }
+
+    @Test
+    void readWithoutTenant_ShouldSeeNoRowsEvenOnAConnectionUsedByATenant() {
+        TenantContext.runWithTenant(1L, () -> assertEquals(2, countBatches()));
+
+        assertEquals(0, countBatches());
+    }
+
+    @Test
+    void writeForAnotherTenant_ShouldBeRejected() {
+        TenantContext.runWithTenant(1L, () -> assertThrows(RuntimeException.class, () -> jdbcTemplate.update(
+                "INSERT INTO " + SCHEMA + ".batch (organization_id) VALUES (2)")));
+    }
+
+    @Test
+    void crossTenantJob_ShouldSeeEveryTenantThroughTheBackgroundRole() {
+        TenantContext.runCrossTenant(() -> {
+            assertEquals(3, countBatches());
+            assertEquals(BACKGROUND_ROLE, jdbcTemplate.queryForObject("SELECT current_user", String.class));
+        });
+    }
+
+    private int countBatches() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + SCHEMA + ".batch", Integer.class);
+    }
+
+    private static DriverManagerDataSource dataSource(String username, String password) {
+        return new DriverManagerDataSource(System.getenv("TEST_DB_URL"), username, password);
+    }
+}
@@ -0,0 +1,274 @@
+package com.plantalinda.app.controller;
+
+import com.plantalinda.app.model.Report;
+import com.plantalinda.app.model.ReportType;
+import com.plantalinda.app.service.ReportContentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportContentResponsesTest {
+
+    private static final String JSON = "{\"batches\":[{\"batchId\":1,\"batchName\":\"Lote 1\"}]}";
+    private static final String GZIP_ETAG = "\"abc123\"";
+    private static final String IDENTITY_ETAG = "\"abc123-identity\"";
+
+    @Mock
+    private ReportContentStore store;
+
+    private byte[] gzip;
+    private Report report;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        gzip = compressed.toByteArray();
+        report = Report.builder().id(4L).type(ReportType.TRACEABILITY)
+                .contentSize((long) JSON.length()).compressedSize((long) gzip.length).contentEtag("abc123")
+                .build();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "gzip | true",
+            "GZIP | true",
+            "deflate, gzip | true",
+            "gzip;q=0.5 | true",
+            "gzip; q=1.0 | true",
+            "* | true",
+            "gzip;q=0 | false",
+            "gzip; q = 0.000 | false",
+            "*;q=0 | false",
+            "br, deflate | false",
+            "identity | false",
+            "gzip;q=0, *;q=0.1 | true" })
+    void acceptsGzip_ShouldHonourQValues(String acceptEncoding, boolean expected) {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+
+        assertEquals(expected, ReportContentResponses.acceptsGzip(request));
+    }
+
+    @Test
+    void acceptsGzip_WithoutHeader_ShouldBeFalse() {
+        assertFalse(ReportContentResponses.acceptsGzip(new HttpHeaders()));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "\"abc123\"",
+            "W/\"abc123\"",
+            "*",
+            "\"other\", \"abc123\"" })
+    void download_WhenIfNoneMatchMatches_ShouldAnswerNotModified(String ifNoneMatch) {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(GZIP_ETAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void download_WhenIfNoneMatchNamesTheOtherRepresentation_ShouldSendTheBody() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.IF_NONE_MATCH, IDENTITY_ETAG);
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(gzip, body(response));
+    }
+
+    @Test
+    void download_WithGzip_ShouldSendTheStoredBytesUnderTheGzipEtag() throws Exception {
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, gzipRequest(),
+                store);
+
+        HttpHeaders headers = response.getHeaders();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(GZIP_ETAG, headers.getETag());
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("bytes", headers.getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertEquals(gzip.length, headers.getContentLength());
+        assertArrayEquals(gzip, body(response));
+    }
+
+    @Test
+    void download_WithoutGzip_ShouldDecompressUnderTheIdentityEtag() throws Exception {
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, new HttpHeaders(),
+                store);
+
+        HttpHeaders headers = response.getHeaders();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(IDENTITY_ETAG, headers.getETag());
+        assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("none", headers.getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertEquals(JSON.length(), headers.getContentLength());
+        assertEquals(JSON, new String(body(response), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void download_WithoutGzip_ShouldIgnoreRange() throws Exception {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=0-9");
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(JSON, new String(body(response), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void download_WithSingleRange_ShouldSendPartialContent() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=10-19");
+        when(store.open(4L, 10, 10)).thenReturn(new ByteArrayInputStream(gzip, 10, 10));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 10-19/" + gzip.length, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals(GZIP_ETAG, response.getHeaders().getETag());
+        assertArrayEquals(Arrays.copyOfRange(gzip, 10, 20), body(response));
+    }
+
+    @Test
+    void download_WithSuffixRange_ShouldSendTheLastBytes() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=-5");
+        int start = gzip.length - 5;
+        when(store.open(4L, start, 5)).thenReturn(new ByteArrayInputStream(gzip, start, 5));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes " + start + "-" + (gzip.length - 1) + "/" + gzip.length,
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(gzip, start, gzip.length), body(response));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "0", "1000" })
+    void download_WithRangePastTheEnd_ShouldAnswerRangeNotSatisfiable(int pastTheEnd) {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=" + (gzip.length + pastTheEnd) + "-");
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */" + gzip.length, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void download_WithEmptySuffixRange_ShouldAnswerRangeNotSatisfiable() {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=-0");
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void download_WithSeveralRanges_ShouldSendTheWholeBody() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=0-4,10-14");
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(gzip, body(response));
+    }
+
+    @Test
+    void download_WhenIfRangeNoLongerMatches_ShouldSendTheWholeBody() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=10-19");
+        request.set(HttpHeaders.IF_RANGE, "\"previous\"");
+        when(store.open(4L, 0, gzip.length)).thenReturn(new ByteArrayInputStream(gzip));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(gzip, body(response));
+        verify(store, never()).open(anyLong(), eq(10L), anyLong());
+    }
+
+    @Test
+    void download_WhenIfRangeMatches_ShouldSendTheRange() throws Exception {
+        HttpHeaders request = gzipRequest();
+        request.set(HttpHeaders.RANGE, "bytes=10-19");
+        request.set(HttpHeaders.IF_RANGE, GZIP_ETAG);
+        when(store.open(4L, 10, 10)).thenReturn(new ByteArrayInputStream(gzip, 10, 10));
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(report, request, store);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertArrayEquals(Arrays.copyOfRange(gzip, 10, 20), body(response));
+    }
+
+    @Test
+    void download_LegacyReport_ShouldServeTheStoredJson() throws Exception {
+        Report legacy = Report.builder().id(2L).type(ReportType.INVENTORY_SUMMARY).content(JSON).build();
+
+        ResponseEntity<StreamingResponseBody> response = ReportContentResponses.download(legacy, gzipRequest(),
+                store);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(JSON, new String(body(response), StandardCharsets.UTF_8));
+        verifyNoInteractions(store);
+    }
+
+    private static HttpHeaders gzipRequest() {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        return request;
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+}
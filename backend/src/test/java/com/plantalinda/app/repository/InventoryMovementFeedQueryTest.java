@@ -0,0 +1,161 @@
+package com.plantalinda.app.repository;
+
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.MovementFeedFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejecuta la consulta del feed con Hibernate contra un Postgres local, en un
+ * esquema propio creado a partir de las entidades. Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class InventoryMovementFeedQueryTest {
+
+    private static final String SCHEMA = "movement_feed_test";
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private InventoryMovementFeedRepositoryImpl repository;
+    private long organizationId;
+    private long otherOrganizationId;
+    private long itemId;
+    private long otherItemId;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource admin = new DriverManagerDataSource(System.getenv("TEST_DB_URL"),
+                System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres"));
+        new JdbcTemplate(admin).execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        new JdbcTemplate(admin).execute("CREATE SCHEMA " + SCHEMA);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("TEST_DB_URL"),
+                admin.getUsername(), admin.getPassword());
+        Properties connection = new Properties();
+        connection.setProperty("currentSchema", SCHEMA);
+        dataSource.setConnectionProperties(connection);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Mismo mapeo que la aplicación; el esquema lo crea Hibernate desde las entidades
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.plantalinda.app.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        repository = new InventoryMovementFeedRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO _user (email, role, active) VALUES ('feed@test.com', 'OWNER', true) RETURNING id",
+                Long.class);
+        organizationId = insertOrganization("feed");
+        otherOrganizationId = insertOrganization("other");
+        itemId = insertItem(organizationId);
+        otherItemId = insertItem(organizationId);
+
+        // Varios movimientos comparten timestamp: el id desempata entre páginas
+        for (int i = 0; i < 25; i++) {
+            insertMovement(organizationId, i % 3 == 0 ? otherItemId : itemId, BASE.plusMinutes(i / 2));
+        }
+        insertMovement(otherOrganizationId, insertItem(otherOrganizationId), BASE.plusMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void findFeedPage_ShouldWalkEveryMovementOnceInTimestampAndIdOrder() {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM inventory_movement "
+                + "WHERE organization_id = ? ORDER BY timestamp DESC, id DESC", Long.class, organizationId);
+
+        List<Long> walked = walk(new MovementFeedFilter(null, null, null, null, null, null), 10);
+
+        assertEquals(25, expected.size());
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void findFeedPage_WithFilters_ShouldWalkOnlyTheMatchingMovements() {
+        LocalDateTime from = BASE.plusMinutes(2);
+        LocalDateTime to = BASE.plusMinutes(10);
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM inventory_movement "
+                + "WHERE organization_id = ? AND inventory_item_id = ? AND timestamp >= ? AND timestamp < ? "
+                + "ORDER BY timestamp DESC, id DESC", Long.class, organizationId, itemId, from, to);
+
+        List<Long> walked = walk(new MovementFeedFilter(null, itemId, null, userId, from, to), 4);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, walked);
+    }
+
+    /** Recorre el feed como el cliente: cada página sigue desde el último elemento de la anterior. */
+    private List<Long> walk(MovementFeedFilter filter, int limit) {
+        List<Long> ids = new ArrayList<>();
+        KeysetPageRequest page = KeysetPageRequest.of(null, limit);
+        while (true) {
+            List<InventoryMovementResponse> rows = repository.findFeedPage(organizationId, filter, page);
+            assertTrue(rows.size() <= limit + 1);
+            List<InventoryMovementResponse> visible = rows.subList(0, Math.min(rows.size(), limit));
+            visible.forEach(row -> ids.add(row.getId()));
+            if (rows.size() <= limit) {
+                return ids;
+            }
+            InventoryMovementResponse last = visible.get(visible.size() - 1);
+            page = KeysetPageRequest.of(new KeysetCursor(last.getTimestamp(), last.getId()).encode(), limit);
+        }
+    }
+
+    private long insertOrganization(String slug) {
+        return jdbcTemplate.queryForObject("INSERT INTO organization "
+                + "(name, slug, plan, owner_id, active, created_at, updated_at) "
+                + "VALUES (?, ?, 'PRO', ?, true, now(), now()) RETURNING id", Long.class, slug, slug, userId);
+    }
+
+    private long insertItem(long organization) {
+        return jdbcTemplate.queryForObject("INSERT INTO inventory_item "
+                + "(name, type, current_quantity, below_minimum, unit, created_at, user_id, organization_id) "
+                + "VALUES ('Sustrato', 'SUBSTRATE', 100, false, 'KILOGRAM', now(), ?, ?) RETURNING id",
+                Long.class, userId, organization);
+    }
+
+    private void insertMovement(long organization, long item, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO inventory_movement "
+                + "(inventory_item_id, type, quantity, previous_quantity, new_quantity, timestamp, user_id, "
+                + "organization_id) VALUES (?, 'USAGE', -1, 100, 99, ?, ?, ?)",
+                item, timestamp, userId, organization);
+    }
+}
@@ -0,0 +1,154 @@
+package com.plantalinda.app.repository;
+
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.MovementFeedFilter;
+import com.plantalinda.app.model.MovementType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryMovementFeedRepositoryImplTest {
+
+    private static final Long ORG_ID = 7L;
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<InventoryMovementResponse> query;
+
+    private InventoryMovementFeedRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InventoryMovementFeedRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+    }
+
+    @Test
+    void findFeedPage_WithoutFilters_ShouldOnlyScopeToTheOrganization() {
+        findFeedPage(noFilter(), KeysetPageRequest.of(null, 20));
+
+        String jpql = capturedJpql();
+        assertTrue(jpql.startsWith(InventoryMovementRepository.RESPONSE + "WHERE m.organization.id = :orgId"));
+        assertTrue(jpql.endsWith(" ORDER BY m.timestamp DESC, m.id DESC"));
+        assertFalse(jpql.contains("IS NULL"));
+        assertFalse(jpql.contains(":after"));
+        verify(query).setParameter("orgId", ORG_ID);
+        verify(query, times(1)).setParameter(anyString(), any());
+    }
+
+    @Test
+    void findFeedPage_WithEveryFilter_ShouldAddEachClauseAndBindItsParameter() {
+        MovementFeedFilter filter = new MovementFeedFilter(MovementType.USAGE, 11L, 12L, 13L, FROM, TO);
+
+        findFeedPage(filter, KeysetPageRequest.of(null, 20));
+
+        String jpql = capturedJpql();
+        assertTrue(jpql.contains(" AND m.type = :type"));
+        assertTrue(jpql.contains(" AND m.inventoryItem.id = :itemId"));
+        assertTrue(jpql.contains(" AND m.batch.id = :batchId"));
+        assertTrue(jpql.contains(" AND m.user.id = :userId"));
+        assertTrue(jpql.contains(" AND m.timestamp >= :from"));
+        assertTrue(jpql.contains(" AND m.timestamp < :to"));
+        verify(query).setParameter("orgId", ORG_ID);
+        verify(query).setParameter("type", MovementType.USAGE);
+        verify(query).setParameter("itemId", 11L);
+        verify(query).setParameter("batchId", 12L);
+        verify(query).setParameter("userId", 13L);
+        verify(query).setParameter("from", FROM);
+        verify(query).setParameter("to", TO);
+        verify(query, times(7)).setParameter(anyString(), any());
+    }
+
+    @Test
+    void findFeedPage_WithOneFilter_ShouldLeaveTheOthersOut() {
+        findFeedPage(new MovementFeedFilter(null, 11L, null, null, null, null),
+                KeysetPageRequest.of(null, 20));
+
+        String jpql = capturedJpql();
+        assertTrue(jpql.contains(" AND m.inventoryItem.id = :itemId"));
+        assertFalse(jpql.contains(":type"));
+        assertFalse(jpql.contains(":batchId"));
+        assertFalse(jpql.contains(":userId"));
+        assertFalse(jpql.contains(":from"));
+        assertFalse(jpql.contains(":to"));
+        verify(query).setParameter("itemId", 11L);
+        verify(query, times(2)).setParameter(anyString(), any());
+    }
+
+    @Test
+    void findFeedPage_AfterACursor_ShouldContinueBelowTheLastRow() {
+        KeysetCursor after = new KeysetCursor(LocalDateTime.of(2024, 3, 15, 10, 30), 99L);
+
+        findFeedPage(noFilter(), KeysetPageRequest.of(after.encode(), 20));
+
+        String jpql = capturedJpql();
+        assertTrue(jpql.contains(" AND (m.timestamp, m.id) < (:afterTimestamp, :afterId) ORDER BY"));
+        verify(query).setParameter("afterTimestamp", after.timestamp());
+        verify(query).setParameter("afterId", 99L);
+    }
+
+    @Test
+    void findFeedPage_ShouldFetchOneRowMoreThanThePage() {
+        findFeedPage(noFilter(), KeysetPageRequest.of(null, 20));
+
+        verify(query).setMaxResults(21);
+    }
+
+    @Test
+    void findFeedPage_ShouldCapTheProbeAtTheMaximumLimit() {
+        findFeedPage(noFilter(), KeysetPageRequest.of(null, 10_000));
+
+        verify(query).setMaxResults(KeysetPageRequest.MAX_LIMIT + 1);
+    }
+
+    @Test
+    void movementFeedFilter_ShouldRejectAnEmptyOrInvertedRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MovementFeedFilter(null, null, null, null, FROM, FROM));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MovementFeedFilter(null, null, null, null, TO, FROM));
+        assertDoesNotThrow(() -> new MovementFeedFilter(null, null, null, null, FROM, TO));
+        assertDoesNotThrow(() -> new MovementFeedFilter(null, null, null, null, FROM, null));
+    }
+
+    private void findFeedPage(MovementFeedFilter filter, KeysetPageRequest page) {
+        when(entityManager.createQuery(anyString(), eq(InventoryMovementResponse.class))).thenReturn(query);
+        when(query.setMaxResults(anyInt())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of());
+
+        repository.findFeedPage(ORG_ID, filter, page);
+    }
+
+    private String capturedJpql() {
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createQuery(jpql.capture(), eq(InventoryMovementResponse.class));
+        return jpql.getValue();
+    }
+
+    private static MovementFeedFilter noFilter() {
+        return new MovementFeedFilter(null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,66 @@
+package com.plantalinda.app.security;
+
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityVersionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SecurityVersionService securityVersionService;
+
+    @BeforeEach
+    void setUp() {
+        securityVersionService = new SecurityVersionService(
+                userRepository, Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isCurrent_ShouldQueryDatabaseOncePerUser() {
+        when(userRepository.findActiveSecurityVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertTrue(securityVersionService.isCurrent(1L, 3L));
+        assertTrue(securityVersionService.isCurrent(1L, 3L));
+        assertFalse(securityVersionService.isCurrent(1L, 2L));
+
+        verify(userRepository, times(1)).findActiveSecurityVersionById(1L);
+    }
+
+    @Test
+    void isCurrent_WithDeactivatedUser_ShouldReturnFalse() {
+        when(userRepository.findActiveSecurityVersionById(2L)).thenReturn(Optional.empty());
+
+        assertFalse(securityVersionService.isCurrent(2L, 0L));
+    }
+
+    @Test
+    void revoke_ShouldBumpVersionAndEvictCachedValue() {
+        User user = User.builder().id(1L).role(Role.OPERATOR).build();
+        when(userRepository.findActiveSecurityVersionById(1L))
+                .thenReturn(Optional.of(0L))
+                .thenReturn(Optional.of(1L));
+
+        assertTrue(securityVersionService.isCurrent(1L, 0L));
+
+        securityVersionService.revoke(user);
+
+        assertEquals(1L, user.getSecurityVersion());
+        assertFalse(securityVersionService.isCurrent(1L, 0L));
+        assertTrue(securityVersionService.isCurrent(1L, 1L));
+    }
+}
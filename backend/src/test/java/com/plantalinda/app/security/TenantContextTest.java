@@ -0,0 +1,60 @@
+package com.plantalinda.app.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantContextTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void runWithTenant_ShouldRestorePreviousTenant() {
+        TenantContext.runWithTenant(1L, () -> {
+            assertEquals(1L, TenantContext.getTenantId());
+            TenantContext.runWithTenant(2L, () -> assertEquals(2L, TenantContext.getTenantId()));
+            assertEquals(1L, TenantContext.getTenantId());
+        });
+
+        assertFalse(TenantContext.hasTenant());
+    }
+
+    @Test
+    void runCrossTenant_ShouldDropTheTenantUntilTheJobEnds() {
+        TenantContext.runWithTenant(1L, () -> {
+            TenantContext.runCrossTenant(() -> {
+                assertFalse(TenantContext.hasTenant());
+                assertTrue(TenantContext.isCrossTenant());
+            });
+            assertEquals(1L, TenantContext.getTenantId());
+            assertFalse(TenantContext.isCrossTenant());
+        });
+    }
+
+    @Test
+    void taskDecorator_ShouldPropagateTenantToWorkerThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TenantTaskDecorator decorator = new TenantTaskDecorator();
+        try {
+            CompletableFuture<Long> seen = new CompletableFuture<>();
+            TenantContext.runWithTenant(5L,
+                    () -> executor.execute(decorator.decorate(() -> seen.complete(TenantContext.getTenantId()))));
+            assertEquals(5L, seen.get());
+
+            // El worker no conserva el tenant de la tarea anterior
+            CompletableFuture<Boolean> leaked = new CompletableFuture<>();
+            executor.execute(decorator.decorate(() -> leaked.complete(TenantContext.hasTenant())));
+            assertFalse(leaked.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.plantalinda.app.security;
+
+import com.plantalinda.app.model.Batch;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantFilterInterceptorTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Filter filter;
+
+    @InjectMocks
+    private TenantFilterInterceptor interceptor;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void preHandle_WithTenant_ShouldEnableTenantFilter() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.enableFilter(Batch.TENANT_FILTER)).thenReturn(filter);
+
+        TenantContext.runWithTenant(42L, () -> assertTrue(
+                interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object())));
+
+        verify(filter).setParameter(Batch.TENANT_PARAM, 42L);
+    }
+
+    @Test
+    void preHandle_WithoutTenant_ShouldNotTouchSession() {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object()));
+
+        verifyNoInteractions(entityManager);
+    }
+}
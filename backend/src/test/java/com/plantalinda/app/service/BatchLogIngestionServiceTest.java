@@ -0,0 +1,110 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.BulkBatchLogDtos.BulkIngestResponse;
+import com.plantalinda.app.dto.BulkBatchLogDtos.Reading;
+import com.plantalinda.app.dto.BulkBatchLogDtos.RowResult;
+import com.plantalinda.app.model.BatchStage;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.BatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchLogIngestionServiceTest {
+
+    @Mock
+    private BatchRepository batchRepository;
+
+    @Mock
+    private BatchReadingRollupService rollupService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BatchLogIngestionService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new BatchLogIngestionService(batchRepository, rollupService, jdbcTemplate, 10, 500);
+        user = User.builder().id(1L).email("sensor@example.com").role(Role.OPERATOR).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingest_ShouldCheckOwnershipOncePerBatchAndInsertOnlyAcceptedRows() {
+        when(batchRepository.findStagesByIdInAndUserId(any(), eq(1L)))
+                .thenReturn(List.of(stage(5L, BatchStage.VEGETATIVE)));
+
+        List<Reading> readings = List.of(
+                Reading.builder().batchId(5L).ph(6.2).build(),
+                Reading.builder().batchId(5L).humidity(60.0).timestamp(LocalDateTime.now().minusHours(1)).build(),
+                Reading.builder().batchId(9L).ph(6.0).build(), // lote ajeno
+                Reading.builder().batchId(5L).ph(20.0).build(),
+                Reading.builder().batchId(5L).build());
+
+        BulkIngestResponse response = service.ingest(readings, user);
+
+        assertEquals(2, response.getAccepted());
+        assertEquals(3, response.getRejected());
+        assertEquals(List.of(true, true, false, false, false),
+                response.getResults().stream().map(RowResult::isAccepted).toList());
+        assertEquals("Batch not found", response.getResults().get(2).getError());
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(batchRepository, times(1)).findStagesByIdInAndUserId(ids.capture(), eq(1L));
+        assertEquals(Set.of(5L, 9L), Set.copyOf(ids.getValue()));
+
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture(), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2, rows.getValue().size());
+
+        ArgumentCaptor<Collection<BatchReadingRollupService.Sample>> samples = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupService).record(samples.capture());
+        assertEquals(2, samples.getValue().size());
+    }
+
+    @Test
+    void ingest_ShouldRejectOversizedRequests() {
+        List<Reading> readings = IntStream.range(0, 11)
+                .mapToObj(i -> Reading.builder().batchId(5L).ph(6.0).build())
+                .toList();
+
+        assertThrows(IllegalArgumentException.class, () -> service.ingest(readings, user));
+        verifyNoInteractions(batchRepository, rollupService, jdbcTemplate);
+    }
+
+    private BatchRepository.StageView stage(Long id, BatchStage stage) {
+        return new BatchRepository.StageView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BatchStage getCurrentStage() {
+                return stage;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.ReadingSeriesDtos.MetricStats;
+import com.plantalinda.app.dto.ReadingSeriesDtos.Series;
+import com.plantalinda.app.model.BatchReadingRollup;
+import com.plantalinda.app.model.RollupGranularity;
+import com.plantalinda.app.repository.BatchReadingRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchReadingRollupServiceTest {
+
+    @Mock
+    private BatchReadingRollupRepository rollupRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BatchReadingRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BatchReadingRollupService(rollupRepository, jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldUpsertOncePerBucket() {
+        LocalDateTime hour = LocalDateTime.of(2025, 3, 1, 10, 0);
+        List<BatchReadingRollupService.Sample> samples = List.of(
+                new BatchReadingRollupService.Sample(5L, hour.plusMinutes(5), 6.0, null, 24.0, null),
+                new BatchReadingRollupService.Sample(5L, hour.plusMinutes(35), 6.4, null, null, 55.0),
+                new BatchReadingRollupService.Sample(5L, hour.plusHours(1), 6.2, null, null, null));
+
+        service.record(samples);
+
+        // 2 horas distintas + 1 día
+        ArgumentCaptor<Collection<Object>> buckets = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), buckets.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3, buckets.getValue().size());
+    }
+
+    @Test
+    void getSeries_ShouldUseDailyRollupsForLongRanges() {
+        LocalDateTime to = LocalDateTime.of(2025, 6, 1, 0, 0);
+        BatchReadingRollup day = BatchReadingRollup.builder()
+                .id(new BatchReadingRollup.Key(5L, RollupGranularity.DAY, to.minusDays(1)))
+                .phMin(5.8).phMax(6.6).phSum(12.4).phCount(2)
+                .build();
+        when(rollupRepository.findRange(eq(5L), eq(RollupGranularity.DAY), any(), eq(to))).thenReturn(List.of(day));
+
+        Series series = service.getSeries(5L, to.minusDays(90), to, 500);
+
+        assertEquals(RollupGranularity.DAY, series.getResolution());
+        MetricStats ph = series.getPoints().get(0).getPh();
+        assertEquals(6.2, ph.getAvg(), 1e-9);
+        assertNull(series.getPoints().get(0).getHumidity());
+    }
+
+    @Test
+    void getSeries_ShouldUseHourlyRollupsForShortRanges() {
+        LocalDateTime to = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+        Series series = service.getSeries(5L, to.minusDays(7), to, 500);
+
+        assertEquals(RollupGranularity.HOUR, series.getResolution());
+        verify(rollupRepository).findRange(5L, RollupGranularity.HOUR, to.minusDays(7), to);
+    }
+}
@@ -1,16 +1,38 @@
 package com.plantalinda.app.service;
 
+import com.plantalinda.app.dto.BatchLogResponse;
+import com.plantalinda.app.dto.BatchResponse;
+import com.plantalinda.app.dto.CreateBatchLogRequest;
+import com.plantalinda.app.dto.CursorPage;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.model.Batch;
+import com.plantalinda.app.model.BatchLog;
+import com.plantalinda.app.model.BatchStage;
+import com.plantalinda.app.model.Organization;
 import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.BatchLogRepository;
 import com.plantalinda.app.repository.BatchRepository;
+import com.plantalinda.app.repository.InventoryItemRepository;
+import com.plantalinda.app.repository.InventoryMovementRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Simplified tests for BatchService focusing on core functionality
@@ -24,6 +46,24 @@ class BatchServiceTest {
     @Mock
     private BatchLogRepository batchLogRepository;
 
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private BatchReadingRollupService rollupService;
+
+    @Mock
+    private BatchPurgeService purgeService;
+
+    @Mock
+    private InventoryMovementRepository inventoryMovementRepository;
+
+    @Mock
+    private InventoryItemRepository inventoryItemRepository;
+
+    @InjectMocks
+    private BatchService batchService;
+
     private User testUser;
 
     @BeforeEach
@@ -32,6 +72,7 @@ class BatchServiceTest {
                 .id(1L)
                 .email("test@example.com")
                 .role(Role.MANAGER)
+                .organization(Organization.builder().id(10L).build())
                 .build();
     }
 
@@ -49,4 +90,92 @@ class BatchServiceTest {
         assertNotNull(batchRepository);
         assertNotNull(batchLogRepository);
     }
+
+    @Test
+    void getUserBatches_Paged_ShouldReturnCursorOfLastItem() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_456_000);
+        // La consulta trae limit + 1 filas cuando hay otra página
+        List<BatchResponse> rows = LongStream.rangeClosed(1, 3)
+                .mapToObj(id -> new BatchResponse(10 - id, "Lote " + id, null, null, BatchStage.VEGETATIVE,
+                        LocalDate.now(), null, null, createdAt))
+                .toList();
+        when(batchRepository.findPageByOrganizationId(eq(10L), any())).thenReturn(rows);
+
+        CursorPage<BatchResponse> page = batchService.getUserBatches(testUser, KeysetPageRequest.of(null, 2));
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(new KeysetCursor(createdAt, 8L), KeysetCursor.decode(page.getNextCursor()));
+
+        when(batchRepository.findPageByOrganizationIdAfter(eq(10L), eq(createdAt), eq(8L), any()))
+                .thenReturn(rows.subList(2, 3));
+
+        CursorPage<BatchResponse> last = batchService.getUserBatches(testUser,
+                KeysetPageRequest.of(page.getNextCursor(), 2));
+
+        assertEquals(List.of(7L), last.getItems().stream().map(BatchResponse::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void keysetPageRequest_ShouldCapLimitAndRejectInvalidCursor() {
+        assertEquals(KeysetPageRequest.MAX_LIMIT, KeysetPageRequest.of(null, 10_000).limit());
+        assertEquals(KeysetPageRequest.DEFAULT_LIMIT, KeysetPageRequest.of(null, null).limit());
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of("not-a-cursor", 10));
+    }
+
+    @Test
+    void deleteBatch_ShouldDeleteLogsWithSingleStatementAndKeepInventoryHistory() {
+        Batch batch = Batch.builder().id(5L).name("Lote").user(testUser).build();
+        when(batchRepository.findByIdAndUserId(5L, 1L)).thenReturn(Optional.of(batch));
+        when(batchLogRepository.countByBatchId(5L)).thenReturn(20L);
+        when(batchLogRepository.findPhotoUrlsByBatchId(5L)).thenReturn(List.of("a.jpg"));
+
+        assertTrue(batchService.deleteBatch(5L, testUser, null));
+
+        verify(inventoryMovementRepository).clearBatchReferences(5L);
+        verify(inventoryItemRepository).clearBatchReferences(5L);
+        verify(batchLogRepository).bulkDeleteByBatchId(5L);
+        verify(batchLogRepository, never()).deleteAll(any());
+        verify(batchRepository).delete(batch);
+        verify(fileStorageService).deleteAfterCommit(List.of("a.jpg"));
+    }
+
+    @Test
+    void deleteBatch_LargeBatch_ShouldBeQueuedForPurge() {
+        Batch batch = Batch.builder().id(5L).name("Lote").user(testUser).build();
+        when(batchRepository.findByIdAndUserId(5L, 1L)).thenReturn(Optional.of(batch));
+        when(batchLogRepository.countByBatchId(5L)).thenReturn(100_000L);
+        when(purgeService.shouldPurgeAsync(100_000L)).thenReturn(true);
+
+        assertFalse(batchService.deleteBatch(5L, testUser, null));
+
+        assertEquals(Batch.STATUS_DELETING, batch.getStatus());
+        verify(purgeService).purgeAfterCommit(5L);
+        verify(batchLogRepository, never()).bulkDeleteByBatchId(any());
+        verify(batchRepository, never()).delete(any());
+    }
+
+    @Test
+    void createLog_ShouldCheckOwnershipWithStageQueryWithoutLoadingBatch() {
+        when(batchRepository.findCurrentStageByIdAndUserId(5L, 1L)).thenReturn(Optional.of(BatchStage.FLOWERING));
+        when(batchRepository.getReferenceById(5L)).thenReturn(Batch.builder().id(5L).build());
+        when(batchLogRepository.save(any(BatchLog.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchLogResponse response = batchService.createLog(
+                new CreateBatchLogRequest(5L, 6.1, null, null, null, null), testUser, null);
+
+        assertEquals(BatchStage.FLOWERING, response.getStageAtTime());
+        verify(batchRepository, never()).findById(any());
+    }
+
+    @Test
+    void getBatchLogs_ForeignBatch_ShouldBehaveAsNotFound() {
+        when(batchRepository.existsByIdAndUserId(9L, 1L)).thenReturn(false);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> batchService.getBatchLogs(9L, testUser));
+
+        assertEquals("Batch not found", error.getMessage());
+        verifyNoInteractions(batchLogRepository);
+    }
 }
@@ -0,0 +1,60 @@
+package com.plantalinda.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.plantalinda.app.dto.BatchLogResponse;
+import com.plantalinda.app.dto.ExportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest {
+
+    private static final List<ExportWriter.Column<BatchLogResponse>> COLUMNS = List.of(
+            new ExportWriter.Column<>("id", BatchLogResponse::getId),
+            new ExportWriter.Column<>("ph", BatchLogResponse::getPh),
+            new ExportWriter.Column<>("notes", BatchLogResponse::getNotes));
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void csv_ShouldQuoteSpecialCharactersAndNeutralizeFormulas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter<BatchLogResponse> writer = ExportWriter.open(out, ExportFormat.CSV, false, COLUMNS,
+                objectMapper)) {
+            writer.write(BatchLogResponse.builder().id(1L).ph(6.5).notes("riego, \"fuerte\"").build());
+            writer.write(BatchLogResponse.builder().id(2L).notes("=HYPERLINK()").build());
+        }
+
+        assertEquals("id,ph,notes\r\n1,6.5,\"riego, \"\"fuerte\"\"\"\r\n2,,'=HYPERLINK()\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonGzip_ShouldWriteOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter<BatchLogResponse> writer = ExportWriter.open(out, ExportFormat.NDJSON, true, COLUMNS,
+                objectMapper)) {
+            writer.write(BatchLogResponse.builder().id(1L).timestamp(LocalDateTime.of(2025, 1, 2, 3, 4)).build());
+            writer.write(BatchLogResponse.builder().id(2L).build());
+        }
+
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        List<String> lines = text.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(text.endsWith("\n"));
+        assertEquals(1L, objectMapper.readTree(lines.get(0)).get("id").asLong());
+        assertEquals("2025-01-02T03:04:00", objectMapper.readTree(lines.get(0)).get("timestamp").asText());
+    }
+}
@@ -0,0 +1,138 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.CreateInventoryMovementRequest;
+import com.plantalinda.app.dto.InventoryMovementResponse;
+import com.plantalinda.app.model.MovementType;
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.BatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryBulkMovementServiceTest {
+
+    @Mock
+    private InventoryStockService stockService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private BatchRepository batchRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InventoryBulkMovementService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new InventoryBulkMovementService(stockService, notificationService, batchRepository, jdbcTemplate, 10);
+        user = User.builder().id(1L).email("grower@example.com").role(Role.OPERATOR)
+                .organization(Organization.builder().id(10L).build()).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldLockItemsOnceAndChainRepeatedItems() {
+        when(stockService.lockItems(any(), eq(10L))).thenReturn(Map.of(
+                3L, new InventoryStockService.LockedItem(3L, "CalMag", "LITERS", 5.0, 4.0, 2.0),
+                7L, new InventoryStockService.LockedItem(7L, "Sustrato", "KILOGRAMS", 20.0, null, null)));
+        doAnswer(invocation -> {
+            KeyHolder keys = invocation.getArgument(2);
+            keys.getKeyList().addAll(List.of(Map.of("id", 100L), Map.of("id", 101L), Map.of("id", 102L)));
+            return new int[] { 1, 1, 1 };
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class));
+
+        List<InventoryMovementResponse> responses = service.record(List.of(
+                line(7L, MovementType.USAGE, 2.0),
+                line(3L, MovementType.USAGE, 1.5),
+                line(7L, MovementType.USAGE, 3.0)), user);
+
+        assertEquals(List.of(100L, 101L, 102L), responses.stream().map(InventoryMovementResponse::getId).toList());
+        assertEquals(18.0, responses.get(0).getNewQuantity());
+        assertEquals(18.0, responses.get(2).getPreviousQuantity());
+        assertEquals(15.0, responses.get(2).getNewQuantity());
+        assertEquals(-1.5, responses.get(1).getQuantity());
+
+        verify(stockService, times(1)).lockItems(any(), eq(10L));
+        ArgumentCaptor<Map<Long, InventoryStockService.StockLevel>> levels = ArgumentCaptor.forClass(Map.class);
+        verify(stockService).setLevels(levels.capture());
+        assertEquals(Map.of(3L, new InventoryStockService.StockLevel(3.5, 2.0),
+                7L, new InventoryStockService.StockLevel(15.0, null)), levels.getValue());
+        // CalMag cruza su mínimo (5 -> 3.5, mínimo 4); el sustrato no tiene mínimo
+        verify(notificationService, times(1)).notifyLowStock(any(), eq("CalMag"), eq(3.5), eq(4.0), eq("LITERS"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldChainTheWeightedAverageCostAcrossLines() {
+        when(stockService.lockItems(any(), eq(10L))).thenReturn(Map.of(
+                3L, new InventoryStockService.LockedItem(3L, "CalMag", "LITERS", 10.0, null, 2.0)));
+        doAnswer(invocation -> {
+            KeyHolder keys = invocation.getArgument(2);
+            keys.getKeyList().addAll(List.of(Map.of("id", 100L), Map.of("id", 101L)));
+            return new int[] { 1, 1 };
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class));
+        CreateInventoryMovementRequest purchase = line(3L, MovementType.PURCHASE, 10.0);
+        purchase.setCost(40.0);
+
+        service.record(List.of(purchase, line(3L, MovementType.USAGE, 5.0)), user);
+
+        // 10 a 2 + 10 a 4 = 20 a 3; la salida no cambia el promedio
+        ArgumentCaptor<Map<Long, InventoryStockService.StockLevel>> levels = ArgumentCaptor.forClass(Map.class);
+        verify(stockService).setLevels(levels.capture());
+        assertEquals(new InventoryStockService.StockLevel(15.0, 3.0), levels.getValue().get(3L));
+    }
+
+    @Test
+    void record_ShouldWriteNothingWhenAnyLineLacksStock() {
+        when(stockService.lockItems(any(), eq(10L))).thenReturn(Map.of(
+                3L, new InventoryStockService.LockedItem(3L, "CalMag", "LITERS", 1.0, null, null)));
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.record(List.of(
+                line(3L, MovementType.PURCHASE, 1.0),
+                line(3L, MovementType.USAGE, 5.0)), user));
+
+        assertTrue(error.getMessage().startsWith("Insufficient stock of CalMag"));
+        verify(stockService, never()).setLevels(any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldRejectBatchesOutsideTheOrganization() {
+        CreateInventoryMovementRequest movement = line(3L, MovementType.USAGE, 1.0);
+        movement.setBatchId(99L);
+        when(batchRepository.findNamesByIdInAndOrganizationId(any(Collection.class), eq(10L))).thenReturn(List.of());
+
+        assertThrows(RuntimeException.class, () -> service.record(List.of(movement), user));
+        verifyNoInteractions(stockService, jdbcTemplate);
+    }
+
+    private CreateInventoryMovementRequest line(Long itemId, MovementType type, Double quantity) {
+        return new CreateInventoryMovementRequest(itemId, type, quantity, null, null, null);
+    }
+}
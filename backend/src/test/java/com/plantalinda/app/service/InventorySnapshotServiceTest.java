@@ -0,0 +1,100 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.dto.StockBalanceDtos.Balance;
+import com.plantalinda.app.dto.StockBalanceDtos.StockAt;
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySnapshotServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InventorySnapshotService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new InventorySnapshotService(jdbcTemplate, 7);
+        user = User.builder().id(1L).email("grower@example.com").role(Role.OPERATOR)
+                .organization(Organization.builder().id(10L).build()).build();
+    }
+
+    @Test
+    void takeDailySnapshots_ShouldFillEveryMissingDayUpToYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDate.class))).thenReturn(yesterday.minusDays(3));
+
+        service.takeDailySnapshots();
+
+        ArgumentCaptor<Object> day = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(3)).update(anyString(), day.capture(), any(), any(), any());
+        // Cada día parte del snapshot del día anterior
+        assertEquals(List.of(Date.valueOf(yesterday.minusDays(2)), Date.valueOf(yesterday.minusDays(1)),
+                Date.valueOf(yesterday)), day.getAllValues());
+    }
+
+    @Test
+    void takeDailySnapshots_ShouldCapCatchUpAfterLongOutages() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDate.class))).thenReturn(yesterday.minusDays(90));
+
+        service.takeDailySnapshots();
+
+        verify(jdbcTemplate, times(8)).update(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getBalances_ShouldPairOpeningAndClosingStockPerItem() {
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 4, 1, 0, 0);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(Timestamp.valueOf(from)), any(), any(), any()))
+                .thenReturn(List.of(stock(3L, from, 12.0), stock(7L, from, 0.0)));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(Timestamp.valueOf(to)), any(), any(), any()))
+                .thenReturn(List.of(stock(3L, to, 4.5), stock(7L, to, 20.0)));
+
+        List<Balance> balances = service.getBalances(user, from, to);
+
+        assertEquals(2, balances.size());
+        assertEquals(12.0, balances.get(0).getOpeningQuantity());
+        assertEquals(-7.5, balances.get(0).getNetChange());
+        assertEquals(0.0, balances.get(1).getOpeningQuantity());
+        assertEquals(20.0, balances.get(1).getClosingQuantity());
+    }
+
+    @Test
+    void getBalances_ShouldRejectEmptyPeriods() {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> service.getBalances(user, at, at));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private StockAt stock(Long itemId, LocalDateTime at, Double quantity) {
+        return StockAt.builder().inventoryItemId(itemId).inventoryItemName("Item " + itemId).at(at)
+                .quantity(quantity).build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.plantalinda.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba contra un Postgres local, en un esquema propio para no tocar datos. Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class InventoryStockServiceTest {
+
+    private static final String SCHEMA = "stock_concurrency_test";
+    private static final long ORG_ID = 1L;
+    private static final int WRITERS = 32;
+    private static final int MOVEMENTS_PER_WRITER = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private InventoryStockService stockService;
+
+    @BeforeEach
+    void setUp() {
+        Properties schema = new Properties();
+        schema.setProperty("currentSchema", SCHEMA);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("TEST_DB_URL"),
+                System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres"));
+        dataSource.setConnectionProperties(schema);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + ".inventory_item ("
+                + "id BIGSERIAL PRIMARY KEY, organization_id BIGINT, name VARCHAR(255), unit VARCHAR(255), "
+                + "current_quantity DOUBLE PRECISION NOT NULL, minimum_quantity DOUBLE PRECISION, "
+                + "below_minimum BOOLEAN NOT NULL DEFAULT FALSE, average_cost DOUBLE PRECISION, updated_at TIMESTAMP)");
+        stockService = new InventoryStockService(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void concurrentUsage_ShouldNeverLoseUpdatesOrGoNegative() throws Exception {
+        // Stock para la mitad de las salidas: el resto debe rechazarse, no dejar el item en negativo
+        int total = WRITERS * MOVEMENTS_PER_WRITER;
+        long itemId = insertItem(total / 2.0);
+
+        AtomicInteger accepted = new AtomicInteger();
+        long elapsed = runConcurrently(() -> {
+            if (stockService.applyDelta(itemId, ORG_ID, -1, null).isPresent()) {
+                accepted.incrementAndGet();
+            }
+        });
+
+        assertEquals(total / 2, accepted.get());
+        assertEquals(0.0, stockService.currentQuantity(itemId, ORG_ID).orElseThrow());
+        log.info("{} movements on one item from {} writers in {} ms ({}/s)",
+                total, WRITERS, elapsed, Math.round(total * 1000.0 / Math.max(elapsed, 1)));
+    }
+
+    @Test
+    void concurrentMixedMovements_ShouldKeepEveryDeltaAndConsistentSnapshots() throws Exception {
+        long itemId = insertItem(1000);
+
+        List<InventoryStockService.StockChange> changes = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger counter = new AtomicInteger();
+        runConcurrently(() -> {
+            double delta = counter.getAndIncrement() % 2 == 0 ? 3 : -2;
+            stockService.applyDelta(itemId, ORG_ID, delta, null).ifPresent(changes::add);
+        });
+
+        int total = WRITERS * MOVEMENTS_PER_WRITER;
+        double expected = 1000 + (total / 2) * 3 - (total / 2) * 2;
+        assertEquals(total, changes.size());
+        assertEquals(expected, stockService.currentQuantity(itemId, ORG_ID).orElseThrow());
+
+        // Los pares previous -> new deben encadenarse de 1000 al valor final sin bifurcaciones:
+        // dos ajustes que partieran de la misma lectura dejarían un nivel con saldo distinto de cero
+        Map<Double, Integer> balance = new HashMap<>();
+        for (InventoryStockService.StockChange change : changes) {
+            balance.merge(change.previousQuantity(), -1, Integer::sum);
+            balance.merge(change.newQuantity(), 1, Integer::sum);
+        }
+        balance.values().removeIf(v -> v == 0);
+        assertEquals(Map.of(1000.0, -1, expected, 1), balance);
+    }
+
+    @Test
+    void concurrentUsage_ShouldReportTheMinimumCrossingExactlyOnce() throws Exception {
+        int total = WRITERS * MOVEMENTS_PER_WRITER;
+        long itemId = insertItem(total);
+        jdbcTemplate.update("UPDATE " + SCHEMA + ".inventory_item SET minimum_quantity = ? WHERE id = ?",
+                total / 2.0, itemId);
+
+        AtomicInteger crossings = new AtomicInteger();
+        runConcurrently(() -> stockService.applyDelta(itemId, ORG_ID, -1, null)
+                .filter(InventoryStockService.StockChange::crossedBelowMinimum)
+                .ifPresent(change -> crossings.incrementAndGet()));
+
+        assertEquals(1, crossings.get());
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject(
+                "SELECT below_minimum FROM " + SCHEMA + ".inventory_item WHERE id = ?", Boolean.class, itemId));
+    }
+
+    @Test
+    void applyDelta_ShouldKeepTheWeightedAverageCost() {
+        long itemId = insertItem(10);
+        jdbcTemplate.update("UPDATE " + SCHEMA + ".inventory_item SET average_cost = 2 WHERE id = ?", itemId);
+
+        // 10 a 2 + 10 a 4 = 20 a 3; las salidas y las entradas sin costo no lo cambian
+        assertEquals(3.0, stockService.applyDelta(itemId, ORG_ID, 10, 4.0).orElseThrow().averageCost());
+        assertEquals(3.0, stockService.applyDelta(itemId, ORG_ID, -20, null).orElseThrow().averageCost());
+        // Con el stock agotado la siguiente compra fija el promedio
+        assertEquals(5.0, stockService.applyDelta(itemId, ORG_ID, 4, 5.0).orElseThrow().averageCost());
+    }
+
+    @Test
+    void applyDelta_ShouldIgnoreItemsOfOtherOrganizations() {
+        long itemId = insertItem(10);
+
+        assertTrue(stockService.applyDelta(itemId, ORG_ID + 1, -1, null).isEmpty());
+        assertEquals(10.0, stockService.currentQuantity(itemId, ORG_ID).orElseThrow());
+    }
+
+    private long insertItem(double quantity) {
+        return jdbcTemplate.queryForObject("INSERT INTO " + SCHEMA + ".inventory_item "
+                + "(organization_id, name, unit, current_quantity) VALUES (?, 'Fertilizante', 'LITERS', ?) RETURNING id",
+                Long.class, ORG_ID, quantity);
+    }
+
+    /** Lanza WRITERS hilos que arrancan a la vez y devuelve los milisegundos que tardaron. */
+    private long runConcurrently(Runnable movement) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < MOVEMENTS_PER_WRITER; i++) {
+                    movement.run();
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+}
@@ -0,0 +1,60 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.model.Notification;
+import com.plantalinda.app.model.NotificationType;
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.NotificationRepository;
+import com.plantalinda.app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    void notifyLowStock_ShouldOnlyAlertActiveMembersThatManageInventory() {
+        Organization organization = Organization.builder().id(4L).build();
+        User manager = member(1L, Role.MANAGER);
+        User viewer = member(2L, Role.VIEWER);
+        // Eliminado con soft delete y desactivado: ya no pertenecen al equipo
+        User removed = member(3L, Role.OPERATOR);
+        removed.setDeletedAt(LocalDateTime.now());
+        User deactivated = member(4L, Role.ADMIN);
+        deactivated.setActive(false);
+        when(userRepository.findByOrganization(organization)).thenReturn(List.of(manager, viewer, removed, deactivated));
+
+        notificationService.notifyLowStock(organization, "Sustrato", 2, 10, "kg");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+        verify(notificationRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertSame(manager, saved.getValue().get(0).getUser());
+        assertEquals(NotificationType.INVENTORY_LOW, saved.getValue().get(0).getType());
+    }
+
+    private User member(Long id, Role role) {
+        return User.builder().id(id).email("user" + id + "@test.com").role(role).build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.plantalinda.app.service;
+
+import com.plantalinda.app.config.JwtService;
+import com.plantalinda.app.model.Organization;
+import com.plantalinda.app.model.PlanType;
+import com.plantalinda.app.model.Role;
+import com.plantalinda.app.model.User;
+import com.plantalinda.app.repository.OrganizationRepository;
+import com.plantalinda.app.repository.UserRepository;
+import com.plantalinda.app.security.SecurityVersionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrganizationServiceTest {
+
+    @Mock
+    private OrganizationRepository organizationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @Mock
+    private SecurityVersionService securityVersionService;
+
+    @Mock
+    private JwtService jwtService;
+
+    @InjectMocks
+    private OrganizationService organizationService;
+
+    @Test
+    void upgradePlan_ShouldReissueTheCallersTokenAfterRevokingTheOrganization() {
+        Organization organization = Organization.builder().id(4L).name("Org").plan(PlanType.FREE).build();
+        // Principal armado desde el JWT: la organización solo trae id y plan
+        User owner = User.builder().id(1L).email("owner@test.com").role(Role.OWNER)
+                .organization(Organization.builder().id(4L).plan(PlanType.FREE).build())
+                .securityVersion(2L).build();
+        when(organizationRepository.findById(4L)).thenReturn(Optional.of(organization));
+        when(organizationRepository.save(organization)).thenReturn(organization);
+        when(userRepository.findActiveSecurityVersionById(1L)).thenReturn(Optional.of(3L));
+        when(jwtService.generateToken(owner, 3L, organization)).thenReturn("new-token");
+
+        PlanUpgradeResult result = organizationService.upgradePlan(owner, PlanType.PRO);
+
+        assertEquals("new-token", result.token());
+        assertEquals(PlanType.PRO, result.organization().getPlan());
+        assertEquals(10, result.organization().getMaxUsers());
+        // La versión se lee después de revocar: el token nuevo no queda revocado
+        InOrder order = inOrder(securityVersionService, userRepository, jwtService);
+        order.verify(securityVersionService).revokeOrganization(4L);
+        order.verify(userRepository).findActiveSecurityVersionById(1L);
+        order.verify(jwtService).generateToken(any(User.class), eq(3L), any(Organization.class));
+    }
+}
@@ -0,0 +1,188 @@
+package com.plantalinda.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plantalinda.app.repository.BatchLogRepository;
+import com.plantalinda.app.repository.BatchRepository;
+import com.plantalinda.app.repository.InventoryItemRepository;
+import com.plantalinda.app.repository.ReportRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static com.plantalinda.app.service.ReportContentStore.CHUNK_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Guarda y lee cuerpos de reportes contra un Postgres local. El esquema lo
+ * crea Hibernate desde las entidades, como ddl-auto en una base nueva. Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class ReportContentStoreRoundTripTest {
+
+    private static final String SCHEMA = "report_content_test";
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private ReportContentStore store;
+    private TransactionTemplate transactionTemplate;
+    private ReportService reportService;
+    private long reportId;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("TEST_DB_URL"),
+                System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres"));
+        new JdbcTemplate(dataSource).execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        new JdbcTemplate(dataSource).execute("CREATE SCHEMA " + SCHEMA);
+        Properties connection = new Properties();
+        connection.setProperty("currentSchema", SCHEMA);
+        dataSource.setConnectionProperties(connection);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.plantalinda.app.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+
+        store = new ReportContentStore(jdbcTemplate);
+        // Hace de proxy de @Transactional: JdbcTemplate y los repositorios comparten su conexión
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        JpaRepositoryFactory repositories = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        reportService = new ReportService(repositories.getRepository(ReportRepository.class),
+                mock(BatchRepository.class), mock(InventoryItemRepository.class), mock(BatchLogRepository.class),
+                mock(PermissionService.class), mock(NotificationService.class), mock(ApplicationEventPublisher.class),
+                new ObjectMapper(), store);
+        long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO _user (email, role, active) VALUES ('content@test.com', 'OWNER', true) RETURNING id",
+                Long.class);
+        reportId = jdbcTemplate.queryForObject("INSERT INTO reports "
+                + "(user_id, type, start_date, end_date, status, created_at, attempts) "
+                + "VALUES (?, 'TRACEABILITY', now(), now(), 'RUNNING', now(), 1) RETURNING id", Long.class, userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void store_ThenOpen_ShouldReturnTheSameBytesAcrossChunks() throws Exception {
+        // Bytes al azar: el gzip queda más grande que dos bloques de lectura
+        byte[] json = new byte[2 * CHUNK_SIZE + 4321];
+        new Random(7).nextBytes(json);
+
+        ReportContentStore.StoredContent stored = store(out -> out.write(json));
+
+        byte[] gzip = jdbcTemplate.queryForObject("SELECT body FROM report_content WHERE report_id = ?",
+                byte[].class, reportId);
+        assertTrue(gzip.length > 2 * CHUNK_SIZE);
+        assertEquals(json.length, stored.size());
+        assertEquals(gzip.length, stored.compressedSize());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(gzip)), stored.etag());
+
+        try (InputStream in = new GZIPInputStream(store.open(reportId, 0, stored.compressedSize()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+        long offset = CHUNK_SIZE - 100;
+        try (InputStream in = store.open(reportId, offset, CHUNK_SIZE + 200)) {
+            assertArrayEquals(Arrays.copyOfRange(gzip, (int) offset, (int) offset + CHUNK_SIZE + 200),
+                    in.readAllBytes());
+        }
+    }
+
+    @Test
+    void store_Twice_ShouldReplaceTheBody() throws Exception {
+        store(out -> out.write("{\"v\":1}".getBytes()));
+        ReportContentStore.StoredContent stored = store(out -> out.write("{\"v\":2}".getBytes()));
+
+        try (InputStream in = new GZIPInputStream(store.open(reportId, 0, stored.compressedSize()))) {
+            assertEquals("{\"v\":2}", new String(in.readAllBytes()));
+        }
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM report_content", Integer.class));
+    }
+
+    @Test
+    void deletingTheReport_ShouldDeleteItsBody() throws Exception {
+        store(out -> out.write("{}".getBytes()));
+
+        jdbcTemplate.update("DELETE FROM reports WHERE id = ?", reportId);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM report_content", Integer.class));
+    }
+
+    @Test
+    void complete_FromAStaleAttempt_ShouldNotOverwriteTheBody() throws Exception {
+        // El intento 1 se dio por caído y el reporte lo retomó (y terminó) el intento 2
+        jdbcTemplate.update("UPDATE reports SET attempts = 2 WHERE id = ?", reportId);
+        try (ReportContentStore.PreparedContent current = store.prepare(reportId,
+                out -> out.write("{\"attempt\":2}".getBytes()))) {
+            transactionTemplate.executeWithoutResult(status -> reportService.complete(reportId, 2, current));
+        }
+
+        try (ReportContentStore.PreparedContent stale = store.prepare(reportId,
+                out -> out.write("{\"attempt\":1}".getBytes()))) {
+            transactionTemplate.executeWithoutResult(status -> reportService.complete(reportId, 1, stale));
+        }
+
+        assertEquals("COMPLETED", jdbcTemplate.queryForObject("SELECT status FROM reports WHERE id = ?",
+                String.class, reportId));
+        long compressedSize = jdbcTemplate.queryForObject("SELECT compressed_size FROM reports WHERE id = ?",
+                Long.class, reportId);
+        try (InputStream in = new GZIPInputStream(store.open(reportId, 0, compressedSize))) {
+            assertEquals("{\"attempt\":2}", new String(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    void complete_FromAnAttemptThatWasTakenOver_ShouldLeaveTheReportRunning() throws Exception {
+        jdbcTemplate.update("UPDATE reports SET attempts = 2 WHERE id = ?", reportId);
+
+        try (ReportContentStore.PreparedContent stale = store.prepare(reportId,
+                out -> out.write("{\"attempt\":1}".getBytes()))) {
+            transactionTemplate.executeWithoutResult(status -> reportService.complete(reportId, 1, stale));
+        }
+
+        assertEquals("RUNNING", jdbcTemplate.queryForObject("SELECT status FROM reports WHERE id = ?",
+                String.class, reportId));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM report_content", Integer.class));
+    }
+
+    /** Comprime y guarda el cuerpo en una transacción, como ReportService.complete. */
+    private ReportContentStore.StoredContent store(ReportContentStore.ContentWriter writer) throws Exception {
+        try (ReportContentStore.PreparedContent content = store.prepare(reportId, writer)) {
+            transactionTemplate.executeWithoutResult(status -> store.save(reportId, content));
+            return content.stored();
+        }
+    }
+}
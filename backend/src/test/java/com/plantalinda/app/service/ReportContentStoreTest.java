@@ -0,0 +1,135 @@
+package com.plantalinda.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.plantalinda.app.service.ReportContentStore.CHUNK_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lectura por bloques de ReportContentStore.open, con substring() de Postgres
+ * simulado sobre un arreglo en memoria (1-based, recorta al final del bytea).
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportContentStoreTest {
+
+    private static final long REPORT_ID = 3L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ReportContentStore store;
+    private byte[] body;
+    private final List<Object[]> substrings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        store = new ReportContentStore(jdbcTemplate);
+        body = new byte[2 * CHUNK_SIZE + 1234];
+        new Random(42).nextBytes(body);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // offset, length, consultas esperadas
+            "0, 10, 1",
+            "0, " + (2 * CHUNK_SIZE + 1234) + ", 3",
+            (CHUNK_SIZE - 1) + ", 2, 1",
+            "5, " + CHUNK_SIZE + ", 1",
+            "5, " + (CHUNK_SIZE + 1) + ", 2",
+            (2 * CHUNK_SIZE + 1233) + ", 1, 1" })
+    void open_ShouldReadExactlyTheRequestedBytesInChunks(long offset, long length, int queries) throws IOException {
+        stubSubstring(body);
+
+        byte[] read;
+        try (InputStream in = store.open(REPORT_ID, offset, length)) {
+            read = in.readAllBytes();
+        }
+
+        assertArrayEquals(Arrays.copyOfRange(body, (int) offset, (int) (offset + length)), read);
+        assertEquals(queries, substrings.size());
+        long position = offset;
+        for (Object[] args : substrings) {
+            // Posición 1-based y largos como int: substring(bytea, bigint, int) no existe en Postgres
+            assertEquals(Integer.class, args[0].getClass());
+            assertEquals(Integer.class, args[1].getClass());
+            assertEquals((int) (position + 1), args[0]);
+            assertTrue((int) args[1] <= CHUNK_SIZE);
+            assertEquals(REPORT_ID, args[2]);
+            position += (int) args[1];
+        }
+        assertEquals(offset + length, position);
+    }
+
+    @Test
+    void open_WithSingleByteReads_ShouldCrossChunkBoundaries() throws IOException {
+        stubSubstring(body);
+        long offset = CHUNK_SIZE - 2;
+
+        try (InputStream in = store.open(REPORT_ID, offset, 4)) {
+            for (int i = 0; i < 4; i++) {
+                assertEquals(body[(int) offset + i] & 0xff, in.read());
+            }
+            assertEquals(-1, in.read());
+        }
+        assertEquals(1, substrings.size());
+    }
+
+    @Test
+    void open_WithZeroLength_ShouldNotQuery() throws IOException {
+        try (InputStream in = store.open(REPORT_ID, 100, 0)) {
+            assertEquals(-1, in.read());
+        }
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void open_WhenTheBodyIsShorterThanExpected_ShouldFail() {
+        stubSubstring(Arrays.copyOf(body, CHUNK_SIZE + 10));
+
+        IOException error = assertThrows(IOException.class, () -> {
+            try (InputStream in = store.open(REPORT_ID, 0, body.length)) {
+                in.readAllBytes();
+            }
+        });
+        assertTrue(error.getMessage().contains("ended before byte " + body.length));
+    }
+
+    @Test
+    void open_WhenTheReportHasNoContent_ShouldFail() {
+        when(jdbcTemplate.queryForList(anyString(), eq(byte[].class), any(Object[].class))).thenReturn(List.of());
+
+        assertThrows(IOException.class, () -> {
+            try (InputStream in = store.open(REPORT_ID, 0, 10)) {
+                in.read();
+            }
+        });
+    }
+
+    private void stubSubstring(byte[] stored) {
+        when(jdbcTemplate.queryForList(anyString(), eq(byte[].class), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = Arrays.copyOfRange(invocation.getArguments(), 2, 5);
+            substrings.add(args);
+            int from = ((Number) args[0]).intValue() - 1;
+            int to = Math.min(stored.length, from + ((Number) args[1]).intValue());
+            return from >= stored.length ? List.of(new byte[0]) : List.of(Arrays.copyOfRange(stored, from, to));
+        });
+    }
+}
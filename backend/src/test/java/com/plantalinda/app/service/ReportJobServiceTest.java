@@ -0,0 +1,117 @@
+package com.plantalinda.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private ReportContentStore contentStore;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TaskExecutor taskExecutor;
+
+    private ReportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReportJobService(reportService, contentStore, jdbcTemplate, taskExecutor, 2, Duration.ofMinutes(15), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void poll_ShouldNotClaimReportsWhileEveryWorkerIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        when(jdbcTemplate.query(ReportJobService.CLAIM, ReportJobService.CLAIM_MAPPER, 2)).thenReturn(
+                List.of(new ReportJobService.Claim(5L, 1), new ReportJobService.Claim(6L, 2)), List.of());
+        ReportContentStore.PreparedContent content = new ReportContentStore.PreparedContent(
+                Files.createTempFile("report-", ".json.gz"), new ReportContentStore.StoredContent(2, 22, "etag"));
+        when(contentStore.prepare(anyLong(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return content;
+        });
+
+        service.poll();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.poll();
+
+        // Los dos workers están ocupados: el segundo sondeo no toca la cola
+        verify(jdbcTemplate, times(1)).query(eq(ReportJobService.CLAIM), eq(ReportJobService.CLAIM_MAPPER),
+                any(Object[].class));
+        release.countDown();
+        // Cada resultado se registra con el attempts con el que se tomó el reporte
+        verify(reportService, timeout(5000)).complete(5L, 1, content);
+        verify(reportService, timeout(5000)).complete(6L, 2, content);
+    }
+
+    @Test
+    void run_ShouldMarkTheReportFailedWhenGenerationThrows() throws Exception {
+        when(contentStore.prepare(eq(7L), any())).thenAnswer(invocation -> {
+            invocation.<ReportContentStore.ContentWriter>getArgument(1).write(OutputStream.nullOutputStream());
+            return null;
+        });
+        doThrow(new RuntimeException("boom")).when(reportService).writeContent(eq(7L), any());
+
+        service.run(new ReportJobService.Claim(7L, 1));
+
+        verify(reportService).fail(7L, 1, "Error: boom");
+        verify(reportService, never()).complete(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void run_ShouldMarkTheReportFailedWhenStorageFails() throws Exception {
+        when(contentStore.prepare(eq(8L), any())).thenThrow(new IOException("disk full"));
+
+        service.run(new ReportJobService.Claim(8L, 3));
+
+        verify(reportService).fail(8L, 3, "Error: disk full");
+    }
+
+    @Test
+    void run_ShouldDeleteThePreparedBodyOnceTheResultIsRecorded() throws Exception {
+        Path file = Files.createTempFile("report-", ".json.gz");
+        when(contentStore.prepare(eq(9L), any())).thenReturn(new ReportContentStore.PreparedContent(file,
+                new ReportContentStore.StoredContent(2, 22, "etag")));
+        doThrow(new RuntimeException("connection reset")).when(reportService).complete(eq(9L), eq(1), any());
+
+        service.run(new ReportJobService.Claim(9L, 1));
+
+        // Aunque no se pudo registrar, el archivo temporal no queda en disco
+        assertFalse(Files.exists(file));
+        verify(reportService, never()).fail(anyLong(), anyInt(), any());
+    }
+}
@@ -0,0 +1,128 @@
+package com.plantalinda.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plantalinda.app.repository.BatchLogRepository;
+import com.plantalinda.app.repository.BatchRepository;
+import com.plantalinda.app.repository.InventoryItemRepository;
+import com.plantalinda.app.repository.ReportRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta Hibernate al armar el reporte de
+ * trazabilidad, contra un Postgres local y en un esquema propio. Ejemplo:
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/plantalinda_db TEST_DB_USERNAME=postgres TEST_DB_PASSWORD=postgres
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class ReportServiceQueryCountTest {
+
+    private static final String SCHEMA = "report_query_count_test";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 12, 31, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private ReportService reportService;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("TEST_DB_URL"),
+                System.getenv().getOrDefault("TEST_DB_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_DB_PASSWORD", "postgres"));
+        new JdbcTemplate(dataSource).execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        new JdbcTemplate(dataSource).execute("CREATE SCHEMA " + SCHEMA);
+        Properties connection = new Properties();
+        connection.setProperty("currentSchema", SCHEMA);
+        dataSource.setConnectionProperties(connection);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.plantalinda.app.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+                "hibernate.generate_statistics", "true"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // El stream del historial necesita una transacción abierta, como en el worker
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+
+        JpaRepositoryFactory repositories = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        reportService = new ReportService(repositories.getRepository(ReportRepository.class),
+                repositories.getRepository(BatchRepository.class), mock(InventoryItemRepository.class),
+                repositories.getRepository(BatchLogRepository.class), mock(PermissionService.class),
+                mock(NotificationService.class), mock(ApplicationEventPublisher.class), new ObjectMapper(),
+                mock(ReportContentStore.class));
+
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO _user (email, role, active) VALUES ('trace@test.com', 'OWNER', true) RETURNING id",
+                Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 50 })
+    void traceabilityReport_ShouldRunTheSameStatementsForOneOrManyBatches(int batchCount) throws Exception {
+        for (int i = 0; i < batchCount; i++) {
+            long batchId = jdbcTemplate.queryForObject("INSERT INTO batch "
+                    + "(name, strain, plant_count, current_stage, germination_date, created_at, user_id) "
+                    + "VALUES (?, 'OG Kush', 4, 'VEGETATIVE', ?, ?, ?) RETURNING id", Long.class,
+                    "Lote " + i, START.toLocalDate(), START.plusDays(1), userId);
+            jdbcTemplate.update("INSERT INTO batch_log (batch_id, timestamp, type) "
+                    + "VALUES (?, ?, 'RIEGO'), (?, ?, NULL)", batchId, START.plusDays(2), batchId, START.plusDays(3));
+        }
+        long reportId = jdbcTemplate.queryForObject("INSERT INTO reports "
+                + "(user_id, type, start_date, end_date, status, created_at, attempts) "
+                + "VALUES (?, 'TRACEABILITY', ?, ?, 'RUNNING', now(), 1) RETURNING id", Long.class,
+                userId, START, END);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statistics.clear();
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> reportService.writeContent(reportId, out));
+
+        // El reporte, los nombres de los lotes y el historial: una sentencia cada uno
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+        JsonNode batches = new ObjectMapper().readTree(out.toByteArray()).get("batches");
+        assertEquals(batchCount, batches.size());
+        batches.forEach(batch -> assertEquals(2, batch.get("totalLogs").asInt()));
+    }
+}
@@ -1,5 +1,13 @@
 package com.plantalinda.app.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plantalinda.app.dto.CursorPage;
+import com.plantalinda.app.dto.KeysetCursor;
+import com.plantalinda.app.dto.KeysetPageRequest;
+import com.plantalinda.app.dto.ReportSummaryResponse;
+import com.plantalinda.app.model.Report;
+import com.plantalinda.app.model.ReportType;
 import com.plantalinda.app.model.Role;
 import com.plantalinda.app.model.User;
 import com.plantalinda.app.repository.BatchLogRepository;
@@ -9,12 +17,28 @@ import com.plantalinda.app.repository.ReportRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Simplified tests for ReportService focusing on core functionality
@@ -34,6 +58,20 @@ class ReportServiceTest {
         @Mock
         private BatchLogRepository batchLogRepository;
 
+        @Mock
+        private PermissionService permissionService;
+
+        @Mock
+        private NotificationService notificationService;
+
+        @Mock
+        private ApplicationEventPublisher eventPublisher;
+
+        @Mock
+        private ReportContentStore contentStore;
+
+        private ReportService reportService;
+
         private User proUser;
         private User noviceUser;
         private LocalDateTime startDate;
@@ -55,6 +93,10 @@ class ReportServiceTest {
 
                 startDate = LocalDateTime.now().minusMonths(1);
                 endDate = LocalDateTime.now();
+
+                reportService = new ReportService(reportRepository, batchRepository, inventoryItemRepository,
+                                batchLogRepository, permissionService, notificationService, eventPublisher, new ObjectMapper(),
+                                contentStore);
         }
 
         @Test
@@ -87,4 +129,142 @@ class ReportServiceTest {
                 assertNotNull(inventoryItemRepository);
                 assertNotNull(batchLogRepository);
         }
+
+        @ParameterizedTest
+        @ValueSource(ints = { 1, 300 })
+        void traceabilityReport_ShouldUseTwoQueriesRegardlessOfBatchCount(int batchCount) throws Exception {
+                when(reportRepository.findById(9L)).thenReturn(Optional.of(Report.builder().id(9L).user(proUser)
+                                .type(ReportType.TRACEABILITY).startDate(startDate).endDate(endDate).build()));
+                List<BatchRepository.NameView> batches = LongStream.rangeClosed(1, batchCount)
+                                .mapToObj(id -> (BatchRepository.NameView) new Name(id, "Lote " + id)).toList();
+                // Dos registros por lote salvo el primero, que no tiene historial
+                List<BatchLogRepository.TimelineView> timeline = new ArrayList<>();
+                for (long id = 2; id <= batchCount; id++) {
+                        timeline.add(new Entry(id, endDate, "RIEGO", null));
+                        timeline.add(new Entry(id, startDate, null, "Trasplante"));
+                }
+                when(batchRepository.findNamesByUserIdAndCreatedAtBetween(1L, startDate, endDate)).thenReturn(batches);
+                when(batchLogRepository.streamTimelineByUserIdAndCreatedAtBetween(1L, startDate, endDate))
+                                .thenReturn(timeline.stream());
+
+                JsonNode report = readContent(9L);
+
+                verify(batchRepository, times(1)).findNamesByUserIdAndCreatedAtBetween(any(), any(), any());
+                verify(batchLogRepository, times(1)).streamTimelineByUserIdAndCreatedAtBetween(any(), any(), any());
+                verifyNoMoreInteractions(batchRepository, batchLogRepository);
+
+                JsonNode batchNodes = report.get("batches");
+                assertEquals(batchCount, batchNodes.size());
+                assertEquals(0, batchNodes.get(0).get("totalLogs").asInt());
+                if (batchCount > 1) {
+                        JsonNode last = batchNodes.get(batchCount - 1);
+                        assertEquals(batchCount, last.get("batchId").asLong());
+                        assertEquals(2, last.get("totalLogs").asInt());
+                        assertEquals("RIEGO", last.get("timeline").get(0).get("type").asText());
+                        assertEquals("LOG", last.get("timeline").get(1).get("type").asText());
+                }
+        }
+
+        @Test
+        void batchProductionReport_ShouldWriteEachStreamedRowAndTheTotal() throws Exception {
+                when(reportRepository.findById(9L)).thenReturn(Optional.of(Report.builder().id(9L).user(proUser)
+                                .type(ReportType.BATCH_PRODUCTION).startDate(startDate).endDate(endDate).build()));
+                when(batchRepository.streamProductionByUserIdAndCreatedAtBetween(1L, startDate, endDate))
+                                .thenReturn(Stream.of(new Production(1L, "Lote 1", null, "ACTIVE", 12, null),
+                                                new Production(2L, "Lote 2", "OG Kush", "HARVESTED", 6, 410.5)));
+
+                JsonNode report = readContent(9L);
+
+                assertEquals(2, report.get("totalBatches").asInt());
+                assertEquals("N/A", report.get("batches").get(0).get("strain").asText());
+                assertEquals(0, report.get("batches").get(0).get("harvestYield").asInt());
+                assertEquals(410.5, report.get("batches").get(1).get("harvestYield").asDouble());
+        }
+
+        @Test
+        void getUserReports_ShouldPageSummariesByCreationKeyset() {
+                LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+                when(reportRepository.findPageByUserId(eq(1L), any(Pageable.class))).thenReturn(List.of(
+                                summary(9L, createdAt), summary(8L, createdAt), summary(7L, createdAt)));
+
+                CursorPage<ReportSummaryResponse> page = reportService.getUserReports(proUser,
+                                KeysetPageRequest.of(null, 2));
+
+                assertEquals(2, page.getItems().size());
+                assertEquals(new KeysetCursor(createdAt, 8L), KeysetCursor.decode(page.getNextCursor()));
+
+                when(reportRepository.findPageByUserIdAfter(eq(1L), eq(createdAt), eq(8L), any(Pageable.class)))
+                                .thenReturn(List.of(summary(7L, createdAt)));
+                CursorPage<ReportSummaryResponse> last = reportService.getUserReports(proUser,
+                                KeysetPageRequest.of(page.getNextCursor(), 2));
+
+                assertEquals(7L, last.getItems().get(0).getId());
+                assertNull(last.getNextCursor());
+                verify(reportRepository, never()).findAll();
+        }
+
+        @Test
+        void complete_ShouldRecordTheResultOfTheClaimedAttemptAndNotify() {
+                ReportContentStore.PreparedContent content = new ReportContentStore.PreparedContent(
+                                Path.of("report-3.json.gz"), new ReportContentStore.StoredContent(100, 40, "etag"));
+                when(reportRepository.lockAttempt(3L, 2)).thenReturn(Optional.of(3L));
+                when(reportRepository.completeAttempt(eq(3L), eq(2), eq(100L), eq(40L), eq("etag"),
+                                any(LocalDateTime.class))).thenReturn(1);
+                when(reportRepository.findById(3L)).thenReturn(Optional.of(Report.builder().id(3L).user(proUser)
+                                .type(ReportType.INVENTORY_SUMMARY).startDate(startDate).endDate(endDate)
+                                .status(Report.STATUS_COMPLETED).build()));
+
+                reportService.complete(3L, 2, content);
+
+                verify(contentStore).save(3L, content);
+                verify(notificationService).createNotification(eq(proUser), eq("Reporte listo"), any(), any(), any());
+        }
+
+        @Test
+        void complete_WhenAnotherAttemptTookTheReport_ShouldNotWriteTheBody() {
+                // El bloqueo con el attempts viejo no devuelve fila: ni cuerpo ni estado
+                when(reportRepository.lockAttempt(3L, 1)).thenReturn(Optional.empty());
+
+                reportService.complete(3L, 1, new ReportContentStore.PreparedContent(Path.of("report-3.json.gz"),
+                                new ReportContentStore.StoredContent(100, 40, "etag")));
+
+                verifyNoInteractions(contentStore, notificationService);
+                verify(reportRepository, never()).completeAttempt(anyLong(), anyInt(), anyLong(), anyLong(), any(),
+                                any());
+        }
+
+        @Test
+        void fail_WhenAnotherAttemptTookTheReport_ShouldDiscardTheResult() {
+                // Dado por caído y vuelto a tomar: el UPDATE con el attempts viejo no toca filas
+                when(reportRepository.failAttempt(eq(3L), eq(1), eq("Error: boom"), any(LocalDateTime.class)))
+                                .thenReturn(0);
+
+                reportService.fail(3L, 1, "Error: boom");
+
+                verify(reportRepository, never()).findById(anyLong());
+                verify(reportRepository, never()).save(any());
+                verifyNoInteractions(notificationService);
+        }
+
+        private ReportSummaryResponse summary(Long id, LocalDateTime createdAt) {
+                return new ReportSummaryResponse(id, ReportType.INVENTORY_SUMMARY, startDate, endDate,
+                                Report.STATUS_COMPLETED, createdAt, createdAt, 128L, null);
+        }
+
+        private JsonNode readContent(Long reportId) throws Exception {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                reportService.writeContent(reportId, out);
+                return new ObjectMapper().readTree(out.toByteArray());
+        }
+
+        private record Production(Long getId, String getName, String getStrain, String getStatus,
+                        Integer getPlantCount, Double getHarvestYield) implements BatchRepository.ProductionView {
+        }
+
+        private record Name(Long getId, String getName) implements BatchRepository.NameView {
+        }
+
+        private record Entry(Long getBatchId, LocalDateTime getTimestamp, String getType, String getNotes)
+                        implements BatchLogRepository.TimelineView {
+        }
 }
@@ -4,7 +4,7 @@ import { useState, useEffect } from 'react';
 import { useRouter, useParams } from 'next/navigation';
 import ProGuard from '@/components/ProGuard';
 import RoleGuard from '@/components/RoleGuard';
-import api from '@/services/api';
+import api, { downloadFile, getPage } from '@/services/api';
 
 interface Batch {
     id: number;
@@ -55,6 +55,8 @@ export default function BatchDetailPage() {
 
     const [batch, setBatch] = useState<Batch | null>(null);
     const [logs, setLogs] = useState<BatchLog[]>([]);
+    const [logsCursor, setLogsCursor] = useState<string | null>(null);
+    const [loadingMoreLogs, setLoadingMoreLogs] = useState(false);
     const [loading, setLoading] = useState(true);
     const [showLogForm, setShowLogForm] = useState(false);
     const [logForm, setLogForm] = useState({
@@ -71,12 +73,13 @@ export default function BatchDetailPage() {
 
     const fetchBatchData = async () => {
         try {
-            const [batchRes, logsRes] = await Promise.all([
+            const [batchRes, logsPage] = await Promise.all([
                 api.get(`/batches/${batchId}`),
-                api.get(`/batches/${batchId}/logs`)
+                getPage<BatchLog>(`/batches/${batchId}/logs`)
             ]);
             setBatch(batchRes.data);
-            setLogs(logsRes.data);
+            setLogs(logsPage.items);
+            setLogsCursor(logsPage.nextCursor);
         } catch (err) {
             console.error('Error loading batch:', err);
         } finally {
@@ -84,6 +87,27 @@ export default function BatchDetailPage() {
         }
     };
 
+    const exportLogs = async () => {
+        try {
+            await downloadFile(`/batches/${batchId}/logs/export?format=CSV`, `lote-${batchId}-bitacora.csv`);
+        } catch (err) {
+            console.error('Error exporting logs:', err);
+        }
+    };
+
+    const loadMoreLogs = async () => {
+        setLoadingMoreLogs(true);
+        try {
+            const page = await getPage<BatchLog>(`/batches/${batchId}/logs`, logsCursor);
+            setLogs((current) => [...current, ...page.items]);
+            setLogsCursor(page.nextCursor);
+        } catch (err) {
+            console.error('Error loading logs:', err);
+        } finally {
+            setLoadingMoreLogs(false);
+        }
+    };
+
     const handleStageChange = async (newStage: string) => {
         if (!confirm(`¿Cambiar etapa a ${STAGE_LABELS[newStage]}?`)) return;
 
@@ -191,12 +215,20 @@ export default function BatchDetailPage() {
                                 <h2 className="text-2xl font-bold text-gray-800">
                                     📋 Bitácora
                                 </h2>
-                                <button
-                                    onClick={() => setShowLogForm(!showLogForm)}
-                                    className="bg-green-600 text-white px-4 py-2 rounded-lg hover:bg-green-700"
-                                >
-                                    {showLogForm ? 'Cancelar' : '+ Nueva Entrada'}
-                                </button>
+                                <div className="flex gap-2">
+                                    <button
+                                        onClick={exportLogs}
+                                        className="border border-gray-300 text-gray-700 px-4 py-2 rounded-lg hover:bg-gray-100"
+                                    >
+                                        Exportar CSV
+                                    </button>
+                                    <button
+                                        onClick={() => setShowLogForm(!showLogForm)}
+                                        className="bg-green-600 text-white px-4 py-2 rounded-lg hover:bg-green-700"
+                                    >
+                                        {showLogForm ? 'Cancelar' : '+ Nueva Entrada'}
+                                    </button>
+                                </div>
                             </div>
 
                             {/* Log Form */}
@@ -321,6 +353,15 @@ export default function BatchDetailPage() {
                                             )}
                                         </div>
                                     ))}
+                                    {logsCursor && (
+                                        <button
+                                            onClick={loadMoreLogs}
+                                            disabled={loadingMoreLogs}
+                                            className="w-full border border-gray-300 text-gray-700 py-2 rounded-lg hover:bg-gray-50 disabled:opacity-50"
+                                        >
+                                            {loadingMoreLogs ? 'Cargando...' : 'Cargar entradas anteriores'}
+                                        </button>
+                                    )}
                                 </div>
                             )}
                         </div>
@@ -5,7 +5,7 @@ import { useRouter } from 'next/navigation';
 import DashboardLayout from '@/components/DashboardLayout';
 import ProGuard from '@/components/ProGuard';
 import RoleGuard from '@/components/RoleGuard';
-import api from '@/services/api';
+import api, { getPage } from '@/services/api';
 import { currentUserHasPermission } from '@/utils/permissions';
 
 interface Batch {
@@ -39,6 +39,8 @@ const STAGE_COLORS: Record<string, string> = {
 export default function BatchesPage() {
     const router = useRouter();
     const [batches, setBatches] = useState<Batch[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
 
@@ -48,8 +50,9 @@ export default function BatchesPage() {
 
     const fetchBatches = async () => {
         try {
-            const response = await api.get('/batches');
-            setBatches(response.data);
+            const page = await getPage<Batch>('/batches');
+            setBatches(page.items);
+            setNextCursor(page.nextCursor);
         } catch (err: any) {
             if (err.response?.status === 403) {
                 setError('Esta funcionalidad es solo para usuarios PRO');
@@ -61,6 +64,19 @@ export default function BatchesPage() {
         }
     };
 
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            const page = await getPage<Batch>('/batches', nextCursor);
+            setBatches((current) => [...current, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            setError('Error al cargar lotes');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleDelete = async (id: number) => {
         if (!confirm('¿Estás seguro de eliminar este lote?')) return;
 
@@ -196,6 +212,17 @@ export default function BatchesPage() {
                                 ))}
                             </div>
                         )}
+                        {nextCursor && (
+                            <div className="flex justify-center mt-8">
+                                <button
+                                    onClick={loadMore}
+                                    disabled={loadingMore}
+                                    className="px-6 py-2 bg-white dark:bg-gray-800 border border-gray-300 dark:border-gray-600 text-gray-700 dark:text-gray-300 rounded-lg hover:bg-gray-50 dark:hover:bg-gray-700 transition-colors disabled:opacity-50"
+                                >
+                                    {loadingMore ? 'Cargando...' : 'Cargar más'}
+                                </button>
+                            </div>
+                        )}
                     </div>
                 </DashboardLayout>
             </RoleGuard>
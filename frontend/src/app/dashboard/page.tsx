@@ -66,7 +66,7 @@ export default function DashboardPage() {
     const fetchDashboardData = async () => {
         try {
             // Fetch diagnoses count
-            const diagnosesRes = await api.get('/diagnosis/history');
+            const diagnosesRes = await api.get('/diagnosis/history?unpaged=true');
             const totalDiagnoses = diagnosesRes.data.length;
 
             let totalBatches = 0;
@@ -75,7 +75,7 @@ export default function DashboardPage() {
 
             // Try to fetch PRO features
             try {
-                const batchesRes = await api.get('/batches');
+                const batchesRes = await api.get('/batches?unpaged=true');
                 totalBatches = batchesRes.data.length;
                 activeBatches = batchesRes.data.filter((b: any) =>
                     b.currentStage !== 'HARVEST' && b.currentStage !== 'CURING'
@@ -61,7 +61,7 @@ export default function NewInventoryItemPage() {
 
     const fetchBatches = async () => {
         try {
-            const response = await api.get('/batches');
+            const response = await api.get('/batches?unpaged=true');
             setBatches(response.data);
         } catch (err) {
             console.error('Error loading batches:', err);
@@ -5,7 +5,7 @@ import { useRouter } from 'next/navigation';
 import DashboardLayout from '@/components/DashboardLayout';
 import ProGuard from '@/components/ProGuard';
 import RoleGuard from '@/components/RoleGuard';
-import api from '@/services/api';
+import api, { getPage } from '@/services/api';
 import { Package, AlertTriangle, Filter, Plus, Trash2, ArrowRight, ArrowLeft } from 'lucide-react';
 
 interface InventoryItem {
@@ -46,6 +46,8 @@ const UNIT_LABELS: Record<string, string> = {
 export default function InventoryPage() {
     const router = useRouter();
     const [items, setItems] = useState<InventoryItem[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
     const [filterType, setFilterType] = useState<string>('ALL');
@@ -56,11 +58,15 @@ export default function InventoryPage() {
 
     const fetchInventory = async () => {
         try {
-            const endpoint = filterType === 'ALL'
-                ? '/inventory/items'
-                : `/inventory/items/type/${filterType}`;
-            const response = await api.get(endpoint);
-            setItems(response.data);
+            if (filterType === 'ALL') {
+                const page = await getPage<InventoryItem>('/inventory/items');
+                setItems(page.items);
+                setNextCursor(page.nextCursor);
+            } else {
+                const response = await api.get(`/inventory/items/type/${filterType}`);
+                setItems(response.data);
+                setNextCursor(null);
+            }
         } catch (err: any) {
             if (err.response?.status === 403) {
                 setError('Esta funcionalidad es solo para usuarios PRO');
@@ -72,6 +78,19 @@ export default function InventoryPage() {
         }
     };
 
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            const page = await getPage<InventoryItem>('/inventory/items', nextCursor);
+            setItems((current) => [...current, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            setError('Error al cargar inventario');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleDelete = async (id: number) => {
         if (!confirm('¿Estás seguro de eliminar este item?')) return;
 
@@ -280,6 +299,17 @@ export default function InventoryPage() {
                                 ))}
                             </div>
                         )}
+                        {nextCursor && (
+                            <div className="flex justify-center mt-8">
+                                <button
+                                    onClick={loadMore}
+                                    disabled={loadingMore}
+                                    className="px-6 py-2 bg-white dark:bg-gray-800 border border-gray-300 dark:border-gray-600 text-gray-700 dark:text-gray-300 rounded-lg hover:bg-gray-50 dark:hover:bg-gray-700 transition-colors disabled:opacity-50"
+                                >
+                                    {loadingMore ? 'Cargando...' : 'Cargar más'}
+                                </button>
+                            </div>
+                        )}
                     </div>
                 </DashboardLayout>
             </RoleGuard>
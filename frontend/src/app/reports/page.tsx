@@ -6,7 +6,7 @@ import DashboardLayout from '@/components/DashboardLayout';
 import ProGuard from '@/components/ProGuard';
 import RoleGuard from '@/components/RoleGuard';
 import { currentUserHasPermission } from '@/utils/permissions';
-import api from '@/services/api';
+import api, { getPage } from '@/services/api';
 import { FileText, Download, Calendar, TrendingUp, Package, Shield } from 'lucide-react';
 
 interface Report {
@@ -16,7 +16,9 @@ interface Report {
     endDate: string;
     status: string;
     createdAt: string;
-    content: string;
+    contentSize: number | null;
+    // Solo en los FAILED; el cuerpo se descarga aparte
+    error: string | null;
 }
 
 const REPORT_TYPES = [
@@ -29,6 +31,8 @@ const REPORT_TYPES = [
 export default function ReportsPage() {
     const router = useRouter();
     const [reports, setReports] = useState<Report[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [generating, setGenerating] = useState(false);
     const [selectedType, setSelectedType] = useState('REPROCANN_MONTHLY');
@@ -48,10 +52,20 @@ export default function ReportsPage() {
         fetchReports();
     }, []);
 
+    // Los reportes se generan en segundo plano: refrescar mientras haya alguno en cola o en curso
+    const hasPendingReports = reports.some(r => r.status === 'PENDING' || r.status === 'RUNNING');
+    useEffect(() => {
+        if (!hasPendingReports) return;
+        const timer = setInterval(fetchReports, 3000);
+        return () => clearInterval(timer);
+    }, [hasPendingReports]);
+
+    // Los pendientes están siempre en la primera página (orden por fecha de creación)
     const fetchReports = async () => {
         try {
-            const response = await api.get('/reports');
-            setReports(response.data);
+            const page = await getPage<Report>('/reports');
+            setReports(page.items);
+            setNextCursor(page.nextCursor);
         } catch (err) {
             console.error('Error loading reports:', err);
         } finally {
@@ -59,6 +73,19 @@ export default function ReportsPage() {
         }
     };
 
+    const loadMore = async () => {
+        setLoadingMore(true);
+        try {
+            const page = await getPage<Report>('/reports', nextCursor);
+            setReports((current) => [...current, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error('Error loading reports:', err);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleGenerateReport = async () => {
         if (!startDate || !endDate) {
             alert('Por favor selecciona las fechas');
@@ -71,7 +98,7 @@ export default function ReportsPage() {
                 startDate: new Date(startDate).toISOString(),
                 endDate: new Date(endDate).toISOString()
             });
-            alert('Reporte generado exitosamente');
+            alert('Reporte en preparación. Aparecerá como COMPLETED cuando esté listo.');
             fetchReports();
         } catch (err: any) {
             alert(err.response?.data?.message || 'Error al generar reporte');
@@ -80,13 +107,25 @@ export default function ReportsPage() {
         }
     };
 
-    const downloadReport = (report: Report) => {
-        const blob = new Blob([report.content], { type: 'application/json' });
-        const url = URL.createObjectURL(blob);
-        const a = document.createElement('a');
-        a.href = url;
-        a.download = `reporte-${report.type}-${report.id}.json`;
-        a.click();
+    // El navegador descomprime el gzip (Content-Encoding) del endpoint de contenido
+    const fetchReportContent = async (report: Report): Promise<string> => {
+        const response = await api.get(`/reports/${report.id}/content`, { responseType: 'text' });
+        return response.data;
+    };
+
+    const downloadReport = async (report: Report) => {
+        try {
+            const content = await fetchReportContent(report);
+            const blob = new Blob([content], { type: 'application/json' });
+            const url = URL.createObjectURL(blob);
+            const a = document.createElement('a');
+            a.href = url;
+            a.download = `reporte-${report.type}-${report.id}.json`;
+            a.click();
+        } catch (e) {
+            console.error(e);
+            alert('Error al descargar el reporte');
+        }
     };
 
     const TRANSLATIONS: Record<string, string> = {
@@ -116,9 +155,9 @@ export default function ReportsPage() {
         'OTHER': 'Otros'
     };
 
-    const downloadCSV = (report: Report) => {
+    const downloadCSV = async (report: Report) => {
         try {
-            const data = JSON.parse(report.content);
+            const data = JSON.parse(await fetchReportContent(report));
             const items = Array.isArray(data) ? data : [data];
             if (items.length === 0) return alert('Reporte vacío');
 
@@ -145,11 +184,12 @@ export default function ReportsPage() {
         }
     };
 
-    const printReport = (report: Report) => {
+    const printReport = async (report: Report) => {
+        // La ventana se abre antes de esperar la descarga para que no la bloquee el navegador
+        const printWindow = window.open('', '_blank');
+        if (!printWindow) return alert('Por favor permite los popups');
         try {
-            const data = JSON.parse(report.content);
-            const printWindow = window.open('', '_blank');
-            if (!printWindow) return alert('Por favor permite los popups');
+            const data = JSON.parse(await fetchReportContent(report));
             const reportLabel = REPORT_TYPES.find(t => t.value === report.type)?.label || report.type;
 
             let contentHtml = '';
@@ -232,6 +272,7 @@ export default function ReportsPage() {
             printWindow.document.close();
         } catch (e) {
             console.error(e);
+            printWindow.close();
             alert('Error al imprimir');
         }
     };
@@ -355,10 +396,13 @@ export default function ReportsPage() {
                                                         <span>
                                                             Generado: {new Date(report.createdAt).toLocaleString('es-AR')}
                                                         </span>
+                                                        {report.contentSize != null && (
+                                                            <span>{(report.contentSize / 1024).toFixed(1)} KB</span>
+                                                        )}
                                                     </div>
                                                     {report.status === 'FAILED' && (
                                                         <p className="text-sm text-red-600 mt-2 bg-red-50 p-2 rounded">
-                                                            {report.content}
+                                                            {report.error}
                                                         </p>
                                                     )}
                                                 </div>
@@ -393,6 +437,17 @@ export default function ReportsPage() {
                                             </div>
                                         </div>
                                     ))}
+                                    {nextCursor && (
+                                        <div className="flex justify-center pt-2">
+                                            <button
+                                                onClick={loadMore}
+                                                disabled={loadingMore}
+                                                className="px-6 py-2 bg-white border border-gray-300 text-gray-700 rounded-lg hover:bg-gray-50 transition-colors disabled:opacity-50"
+                                            >
+                                                {loadingMore ? 'Cargando...' : 'Cargar más'}
+                                            </button>
+                                        </div>
+                                    )}
                                 </div>
                             )}
                         </div>
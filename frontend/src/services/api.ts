@@ -21,4 +21,26 @@ api.interceptors.request.use(
     }
 );
 
+export interface Page<T> {
+    items: T[];
+    nextCursor: string | null;
+}
+
+// Listados paginados (keyset): el cursor de la página siguiente viaja en el header X-Next-Cursor
+export async function getPage<T>(url: string, cursor?: string | null): Promise<Page<T>> {
+    const response = await api.get<T[]>(url, { params: cursor ? { cursor } : undefined });
+    return { items: response.data, nextCursor: response.headers['x-next-cursor'] ?? null };
+}
+
+// Descarga de exportaciones en streaming (CSV/NDJSON) como archivo
+export async function downloadFile(url: string, filename: string): Promise<void> {
+    const response = await api.get<Blob>(url, { responseType: 'blob' });
+    const href = URL.createObjectURL(response.data);
+    const link = document.createElement('a');
+    link.href = href;
+    link.download = filename;
+    link.click();
+    URL.revokeObjectURL(href);
+}
+
 export default api;
@@ -0,0 +1,65 @@
+#!/bin/bash
+# ==============================================================================
+# Planta Linda - Benchmark platform threads vs virtual threads
+# Levanta el backend en cada modo, corre el escenario k6 y compara
+# throughput (req/s) y latencia p99.
+#
+# Requisitos: JDK 21+, k6, jq y la BD de desarrollo levantada.
+# Ejecutar desde la raíz del repo: ./tests/load/benchmark-threads.sh
+# ==============================================================================
+
+set -euo pipefail
+
+PORT="${SERVER_PORT:-8081}"
+BASE_URL="http://localhost:${PORT}"
+OUT_DIR="tests/load/results"
+mkdir -p "$OUT_DIR"
+
+echo "📦 Compilando backend (perfil jdk21)..."
+(cd backend && mvn -B -q clean package -DskipTests -Pjdk21)
+JAR=$(ls backend/target/*.jar | grep -v original | head -1)
+
+run_mode() {
+    local mode="$1"
+    local virtual="$2"
+
+    echo "🚀 Iniciando backend en modo ${mode}..."
+    # El rate limit se eleva para medir el servidor y no el limitador
+    VIRTUAL_THREADS="$virtual" SERVER_PORT="$PORT" java -jar "$JAR" \
+        --rate-limit.anonymous.capacity=1000000 \
+        --rate-limit.plans.FREE.capacity=1000000 \
+        > "$OUT_DIR/backend-${mode}.log" 2>&1 &
+    local pid=$!
+
+    until curl -sf "${BASE_URL}/actuator/health" > /dev/null; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "❌ El backend no arrancó, ver $OUT_DIR/backend-${mode}.log"
+            exit 1
+        fi
+        sleep 2
+    done
+
+    echo "🔥 Ejecutando k6 (${mode})..."
+    BASE_URL="$BASE_URL" RESULTS_FILE="$OUT_DIR/${mode}.json" k6 run --quiet tests/load/k6-script.js || true
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+summary() {
+    local mode="$1"
+    jq -r --arg mode "$mode" '"\($mode)\t\(.metrics.http_reqs.values.rate | . * 100 | round / 100) req/s\tp99 \(.metrics.http_req_duration.values["p(99)"] | . * 100 | round / 100) ms"' \
+        "$OUT_DIR/${mode}.json"
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo ""
+echo "=========================================="
+echo "  Resultados"
+echo "=========================================="
+summary platform
+summary virtual
+echo ""
+echo "Threads pinned (modo virtual): $(grep -c 'Virtual thread pinned' "$OUT_DIR/backend-virtual.log" || true)"
@@ -3,6 +3,7 @@
 // Simula 100 usuarios concurrentes
 // Instalar: https://k6.io/docs/get-started/installation/
 // Ejecutar: k6 run tests/load/k6-script.js
+// Comparar platform vs virtual threads: tests/load/benchmark-threads.sh
 // ==============================================================================
 
 import http from 'k6/http';
@@ -12,6 +13,7 @@ import { Rate } from 'k6/metrics';
 const errorRate = new Rate('errors');
 
 export const options = {
+    summaryTrendStats: ['avg', 'min', 'med', 'max', 'p(95)', 'p(99)'],
     stages: [
         { duration: '30s', target: 20 },   // Ramp up a 20 usuarios
         { duration: '1m', target: 50 },    // Ramp up a 50 usuarios
@@ -25,6 +27,7 @@ export const options = {
 };
 
 const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const RESULTS_FILE = __ENV.RESULTS_FILE || 'tests/load/results.json';
 
 // Datos de prueba
 const testUser = {
@@ -39,13 +42,13 @@ let authToken = null;
 // Setup: Registrar usuario de prueba
 export function setup() {
     const registerRes = http.post(
-        `${BASE_URL}/api/auth/register`,
+        `${BASE_URL}/api/v1/auth/register`,
         JSON.stringify(testUser),
         { headers: { 'Content-Type': 'application/json' } }
     );
 
     const loginRes = http.post(
-        `${BASE_URL}/api/auth/login`,
+        `${BASE_URL}/api/v1/auth/authenticate`,
         JSON.stringify({ email: testUser.email, password: testUser.password }),
         { headers: { 'Content-Type': 'application/json' } }
     );
@@ -81,7 +84,7 @@ export default function (data) {
     // Escenario 2: Obtener lotes (con auth)
     // ==============================================================================
     if (data.token) {
-        const batchesRes = http.get(`${BASE_URL}/api/batches`, { headers });
+        const batchesRes = http.get(`${BASE_URL}/api/v1/batches`, { headers });
         check(batchesRes, {
             'batches status 200': (r) => r.status === 200,
         });
@@ -94,7 +97,7 @@ export default function (data) {
     // Escenario 3: Obtener inventario (con auth)
     // ==============================================================================
     if (data.token) {
-        const inventoryRes = http.get(`${BASE_URL}/api/inventory`, { headers });
+        const inventoryRes = http.get(`${BASE_URL}/api/v1/inventory/items`, { headers });
         check(inventoryRes, {
             'inventory status 200': (r) => r.status === 200,
         });
@@ -107,7 +110,7 @@ export default function (data) {
     // Escenario 4: Obtener notificaciones (con auth)
     // ==============================================================================
     if (data.token) {
-        const notifRes = http.get(`${BASE_URL}/api/notifications`, { headers });
+        const notifRes = http.get(`${BASE_URL}/api/v1/notifications`, { headers });
         check(notifRes, {
             'notifications status 200': (r) => r.status === 200,
         });
@@ -120,7 +123,7 @@ export default function (data) {
 export function handleSummary(data) {
     return {
         'stdout': textSummary(data, { indent: '  ', enableColors: true }),
-        'tests/load/results.json': JSON.stringify(data),
+        [RESULTS_FILE]: JSON.stringify(data),
     };
 }
 
@@ -140,6 +143,7 @@ function textSummary(data, opts) {
   Response Time:
     Avg: ${metrics.http_req_duration.values.avg.toFixed(2)}ms
     p95: ${metrics.http_req_duration.values['p(95)'].toFixed(2)}ms
+    p99: ${metrics.http_req_duration.values['p(99)'].toFixed(2)}ms
     Max: ${metrics.http_req_duration.values.max.toFixed(2)}ms
   
   Errores: ${(metrics.errors.values.rate * 100).toFixed(2)}%